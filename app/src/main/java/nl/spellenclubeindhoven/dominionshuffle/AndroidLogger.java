@@ -0,0 +1,15 @@
+package nl.spellenclubeindhoven.dominionshuffle;
+
+import android.util.Log;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.SolverLogger;
+
+/**
+ * Writes the debug output of the CardSelector to the Android log.
+ */
+public class AndroidLogger implements SolverLogger {
+    @Override
+    public void debug(String tag, String message) {
+        Log.d(tag, message);
+    }
+}
@@ -22,23 +22,28 @@
 
 package nl.spellenclubeindhoven.dominionshuffle;
 
-import java.util.LinkedList;
-import java.util.List;
-
-import nl.spellenclubeindhoven.dominionshuffle.data.Card;
 import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
 import nl.spellenclubeindhoven.dominionshuffle.data.Result;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 public class Application extends android.app.Application {
 	private DataReader dataReader = new DataReader(this);
-	private CardSelector cardSelector = new CardSelector(this);
+	private CardSelector cardSelector = new CardSelector(new PreferenceSettings(this));
 	private boolean cardSelectorLoaded = false;
 	private Result result;
 
+	@Override
+	public void onCreate() {
+		super.onCreate();
+		// Race a search per core, so an unlucky random order doesn't hold up the shuffle
+		cardSelector.setParallelSearches(Runtime.getRuntime().availableProcessors());
+		// Debug builds log how much work each shuffle took
+		cardSelector.setStatisticsEnabled(BuildConfig.DEBUG);
+		cardSelector.setLogger(new AndroidLogger());
+	}
+
 	public DataReader getDataReader() {
 		return dataReader;
 	}
@@ -65,44 +70,10 @@ public class Application extends android.app.Application {
 
 	public void loadResult() {
 		try {
-			JSONObject jsonResult = new JSONObject(DataReader.readStringFromFile(this, "result.json"));
-			
-			JSONArray jsonCards = jsonResult.getJSONArray("cards");
-			LinkedList<Card> cards = new LinkedList<Card>();
-
-			for (int i = 0; i < jsonCards.length(); i++) {
-				Card card = dataReader.getData().getCard(jsonCards.getString(i));
-				if (card == null) return;
-				cards.add(card);
-			}
-
-			Card ferrymanExtraCard = null;
-			Card baneCard = null;
-            Card obeliskCard = null;
-			List<Card> traitCards = null;
-			if (jsonResult.has("ferrymanExtraCard")) {
-				ferrymanExtraCard = dataReader.getData().getCard(jsonResult.getString("ferrymanExtraCard"));
+			Result loadedResult = Result.fromJson(new JSONObject(DataReader.readStringFromFile(this, "result.json")), dataReader.getData());
+			if (loadedResult != null) {
+				result = loadedResult;
 			}
-			if(jsonResult.has("baneCard")) {
-				baneCard = dataReader.getData().getCard(jsonResult.getString("baneCard"));
-			}
-            if(jsonResult.has("obeliskCard")) {
-                obeliskCard = dataReader.getData().getCard(jsonResult.getString("obeliskCard"));
-            }
-			if(jsonResult.has("traitCards")) {
-                JSONArray jsonTraits = jsonResult.getJSONArray("traitCards");
-				for (int i=0; i<jsonTraits.length(); i++)
-				{
-					traitCards.add(dataReader.getData().getCard(jsonTraits.getString(i)));
-				}
-            }
-
-			result = new Result();
-			result.setCards(cards);
-			result.setFerrymanExtraCard(ferrymanExtraCard);
-			result.setBaneCard(baneCard);
-            result.setObeliskCard(obeliskCard);
-			result.setTraitCards(traitCards);
 		} catch (JSONException ignore) {
 			ignore.printStackTrace();
 		} 
@@ -111,28 +82,8 @@ public class Application extends android.app.Application {
 	public void saveResult() {
 		if (result == null) return;
 
-		JSONObject jsonResult = new JSONObject();
-		
-		JSONArray jsonCards = new JSONArray();
-		for (Card card : result.getCards()) {
-			jsonCards.put(card.getName());
-		}
-		
 		try {
-			jsonResult.put("cards", jsonCards);
-			if(result.getFerrymanExtraCard() != null) {
-				jsonResult.put("ferrymanExtraCard", result.getFerrymanExtraCard().getName());
-			}
-			if(result.getBaneCard() != null) {
-				jsonResult.put("baneCard", result.getBaneCard().getName());
-			}
-            if(result.getObeliskCard() != null) {
-                jsonResult.put("obeliskCard", result.getObeliskCard().getName());
-            }
-			if(result.getTraitCards() != null) {
-				jsonResult.put("traitCards", result.getTraitCards());
-			}
-			DataReader.writeStringToFile(this, "result.json", jsonResult.toString());
+			DataReader.writeStringToFile(this, "result.json", result.toJson().toString());
 		} catch (JSONException ignore) {
 			ignore.printStackTrace();
 		}		
@@ -72,7 +72,7 @@ class CardAdapter extends ArrayAdapter<Card> {
 			type.append(Localise.getTypeName(cardType, getContext()));
 		}
 		holder.setDescription(type.toString());
-		holder.setIconValue(card.getCost());
+		holder.setIconValue(card.getCostValue());
 		holder.setSet(Localise.getSetName(card.getSet(), getContext()));
 		if(cardSelector == null) {
 			holder.hideCheckBox();
@@ -24,6 +24,7 @@ package nl.spellenclubeindhoven.dominionshuffle;
 
 import nl.spellenclubeindhoven.dominionshuffle.data.Card;
 import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.Cost;
 import nl.spellenclubeindhoven.dominionshuffle.data.Group;
 
 import android.content.Context;
@@ -99,48 +100,37 @@ class CardOrGroupHolder {
         }
 	}
 	
-	public void setIconValue(String cost) {
-        if (cost == null) {
+	public void setIconValue(Cost cost) {
+        final String coins = cost == null ? null : cost.getCoinsText();
+        if (cost == null || cost.getDebt() == 0) {
             debtView.setVisibility(View.GONE);
             debtValueView.setVisibility(View.GONE);
             setNameDescriptionRightOfCoin();
         } else {
-            final int debtCostIndex = cost.indexOf('D');
-            if (debtCostIndex != -1) {
-                // We have a Debt String
-                String debtCost = cost.substring(debtCostIndex + 1);
-                debtView.setVisibility(View.VISIBLE);
-                debtValueView.setText(debtCost);
-                debtValueView.setVisibility(View.VISIBLE);
-                setNameDescriptionRightOfDebt();
+            debtView.setVisibility(View.VISIBLE);
+            debtValueView.setText(Integer.toString(cost.getDebt()));
+            debtValueView.setVisibility(View.VISIBLE);
+            setNameDescriptionRightOfDebt();
 
-                if (debtCostIndex == 0) {
-                    cost = null;
-                    setDebtLeft();
-                } else {
-                    cost = cost.substring(0, debtCostIndex);
-                    setDebtRightOfCoin();
-                }
+            if (coins == null) {
+                setDebtLeft();
             } else {
-                debtView.setVisibility(View.GONE);
-                debtValueView.setVisibility(View.GONE);
-                setNameDescriptionRightOfCoin();
+                setDebtRightOfCoin();
             }
         }
 
-		if(cost == null) {
+		if(coins == null) {
 			iconView.setVisibility(View.GONE);
 			iconValueView.setVisibility(View.GONE);
 		} else {
-            if(cost.startsWith("P")) {
+            if(cost.getPotions() > 0) {
                 iconView.setImageResource(R.drawable.potion);
-                cost = cost.substring(1);
             }
             else {
                 iconView.setImageResource(R.drawable.coin);
             }
             iconView.setVisibility(View.VISIBLE);
-            iconValueView.setText(cost);
+            iconValueView.setText(coins);
             iconValueView.setVisibility(View.VISIBLE);
 		}
 	}
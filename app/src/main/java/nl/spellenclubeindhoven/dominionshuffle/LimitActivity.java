@@ -36,6 +36,7 @@ import android.widget.AdapterView.OnItemSelectedListener;
 import android.widget.ArrayAdapter;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -47,6 +48,7 @@ import nl.spellenclubeindhoven.dominionshuffle.data.Data;
 import nl.spellenclubeindhoven.dominionshuffle.data.Group;
 import nl.spellenclubeindhoven.dominionshuffle.data.GroupOrCard;
 import nl.spellenclubeindhoven.dominionshuffle.data.Nothing;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
 
 public class LimitActivity extends Activity {
 
@@ -130,16 +132,29 @@ public class LimitActivity extends Activity {
 		return dst;		
 	}
 	
+	/**
+	 * Warns right away when the changed limit makes the rules impossible to satisfy, instead of waiting for a shuffle to fail.
+	 */
+	private void checkRules() {
+		SolveError error = cardSelector.checkRules(data);
+		if(error != null) {
+			Toast.makeText(this, Localise.getSolveErrorMessage(error, this), Toast.LENGTH_LONG).show();
+		}
+	}
+	
 	private OnItemSelectedListener onSpinnerItemSelected = new OnItemSelectedListener() {
 		public void onItemSelected(AdapterView<?> adapterView, View view, int position, long arg3) {
 			if(adapterView == minSpinner) {
+				if(cardSelector.getLimitMinimum(group) == position) return;
 				cardSelector.setLimitMinimum(group, position);
 				sourceHolder.setMinValue(cardSelector.getLimitMinimum(group), cardSelector.getCondition(group) != null);
 			}
 			else if(adapterView == maxSpinner) {
+				if(cardSelector.getLimitMaximum(group) == position) return;
 				cardSelector.setLimitMaximum(group, position);
 				sourceHolder.setMaxValue(cardSelector.getLimitMaximum(group));				
 			}
+			checkRules();
 		}
 
 		public void onNothingSelected(AdapterView<?> arg0) {
@@ -152,6 +167,7 @@ public class LimitActivity extends Activity {
 			GroupOrCard groupOrCard = (GroupOrCard) parent.getAdapter().getItem(position);			
 			cardSelector.setCondition(group, groupOrCard);
 			sourceHolder.setMinValue(cardSelector.getLimitMinimum(group), cardSelector.getCondition(group) != null);
+			checkRules();
 		}
 
 		public void onNothingSelected(AdapterView<?> arg0) {
@@ -2,6 +2,8 @@ package nl.spellenclubeindhoven.dominionshuffle;
 
 import android.content.Context;
 
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+
 /**
  * Created by gynn.rickerby on 10/11/2015.
  */
@@ -39,6 +41,38 @@ public class Localise {
         return getString(internalTypeName, context);
     }
 
+    /**
+     * Gets the message to show for why no kingdom could be generated.
+     */
+    public static String getSolveErrorMessage(SolveError error, Context context) {
+        return context.getResources().getString(getSolveErrorResourceId(error.getReason()));
+    }
+
+    private static int getSolveErrorResourceId(SolveError.Reason reason) {
+        switch (reason) {
+            case OVERCONSTRAINED_MINIMUMS:
+                return R.string.solveerror_overconstrainted_mimumums;
+            case UNSATISFIED_RULE:
+                return R.string.solveerror_unsatisfied_rule;
+            case TOO_MANY_CARDS:
+                return R.string.solveerror_too_many_cards;
+            case NOT_ENOUGH_CARDS:
+                return R.string.solveerror_not_enough_cards;
+            case NO_PROPHECIES_FOUND:
+                return R.string.solveerror_no_prophecies_found;
+            case REQUIRED_OVER_MAXIMUM:
+                return R.string.solveerror_required_over_maximum;
+            case TIMEOUT:
+                return R.string.solveerror_timeout;
+            case CANCELLED:
+                return R.string.solveerror_cancelled;
+            case TOO_COMPLEX_TO_COUNT:
+                return R.string.solveerror_too_complex_to_count;
+            default:
+                return R.string.solveerror_rules_to_strict;
+        }
+    }
+
     /**
      * Gets the String from the Localisation Resources.<br/>
      * If it doesn't exist, use the passed in String. Not ideal, but it avoids causing an error.
@@ -0,0 +1,31 @@
+package nl.spellenclubeindhoven.dominionshuffle;
+
+import android.content.Context;
+import android.preference.PreferenceManager;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelectorSettings;
+
+/**
+ * The settings of the CardSelector, as chosen in the {@link SettingsActivity}.
+ */
+public class PreferenceSettings implements CardSelectorSettings {
+    final private Context context;
+
+    public PreferenceSettings(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public int getCardsToDraw() {
+        String cardsToDraw = PreferenceManager.getDefaultSharedPreferences(this.context).getString(SettingsActivity.CARDS_TO_DRAW, null);
+        if (cardsToDraw == null) {
+            return Constants.DEFAULT_CARDS_TO_DRAW;
+        }
+        return Integer.parseInt(cardsToDraw);
+    }
+
+    @Override
+    public boolean isUniformSampling() {
+        return PreferenceManager.getDefaultSharedPreferences(this.context).getBoolean(SettingsActivity.UNIFORM_SAMPLING, false);
+    }
+}
@@ -24,6 +24,7 @@ package nl.spellenclubeindhoven.dominionshuffle;
 
 import android.app.AlertDialog;
 import android.app.Dialog;
+import android.app.ProgressDialog;
 import android.app.TabActivity;
 import android.content.Context;
 import android.content.DialogInterface;
@@ -33,7 +34,10 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -51,25 +55,39 @@ import android.widget.AdapterView.OnItemLongClickListener;
 import android.widget.Button;
 import android.widget.ListView;
 import android.widget.TabHost;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import org.json.JSONException;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.NumberFormat;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import nl.spellenclubeindhoven.dominionshuffle.data.CancellationToken;
 import nl.spellenclubeindhoven.dominionshuffle.data.Card;
 import nl.spellenclubeindhoven.dominionshuffle.data.CardComparator;
 import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.ConflictingRule;
 import nl.spellenclubeindhoven.dominionshuffle.data.Data;
 import nl.spellenclubeindhoven.dominionshuffle.data.Group;
+import nl.spellenclubeindhoven.dominionshuffle.data.GroupOrCard;
 import nl.spellenclubeindhoven.dominionshuffle.data.Limit;
+import nl.spellenclubeindhoven.dominionshuffle.data.Result;
 import nl.spellenclubeindhoven.dominionshuffle.data.SectionedCardOrGroupAdapter;
 import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveTimeout;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolverStatistics;
 import nl.spellenclubeindhoven.dominionshuffle.widget.CustomFastScrollView;
 
 public class SelectActivity extends TabActivity implements OnScrollListener {
+	private static final String TAG = "SelectActivity";
 	private static final int MENU_SORT = 1;
 	private static final int MENU_SHUFFLE = 2;
 	private static final int MENU_LAST_RESULT = 3;
@@ -78,12 +96,31 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 	private static final int MENU_SAVE = 6;
 	private static final int MENU_SETTINGS = 7;
 	private static final int MENU_ABOUT = 8;
+	private static final int MENU_STATISTICS = 9;
 	private static final int DIALOG_SOLVE_ERROR = 1;
 	private static final int DIALOG_NO_RESULT_ERROR = 2;
 	private static final int DIALOG_SORT = 3;
 	private static final int DIALOG_MINMAX = 4;
 	private static final int DIALOG_MINIMUM = 100;
 	private static final int DIALOG_MAXIMUM = 200;
+	private static final int DIALOG_SHUFFLE = 5;
+	private static final int DIALOG_STATISTICS = 6;
+	private static final long CONFLICT_BUDGET_MILLIS = 100;
+	private static final long SHUFFLE_BUDGET_MILLIS = 30000;
+	private static final long COUNT_BUDGET_MILLIS = 2000;
+	/**
+	 * Counts up to this are written out in full, larger ones as a power of ten
+	 */
+	private static final BigInteger MAX_FULL_COUNT = BigInteger.TEN.pow(12);
+	private static final String SUPERSCRIPT_DIGITS = "\u2070\u00b9\u00b2\u00b3\u2074\u2075\u2076\u2077\u2078\u2079";
+	/**
+	 * Single thread to shuffle on, so the UI stays responsive while the rules are being solved
+	 */
+	private static final ExecutorService shuffleExecutor = Executors.newSingleThreadExecutor();
+	/**
+	 * Single thread to count the kingdoms on, apart from the shuffle so a long count doesn't hold it up
+	 */
+	private static final ExecutorService countExecutor = Executors.newSingleThreadExecutor();
 	private ListView inexList;
 	private ListView constraintList;
 	private DataReader dataReader;
@@ -98,6 +135,16 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 	private int dialogMimimumCount;
 	private int dialogMaximumCount;
 	private float lastActionUpX;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	/**
+	 * Token of the shuffle running in the background, null when there is none
+	 */
+	private CancellationToken shuffleCancellation;
+	private TextView kingdomCountView;
+	/**
+	 * Token of the count for the latest rules, null when there is none
+	 */
+	private CancellationToken countCancellation;
 
 	// State will be remembered of the following variables
 	private String dialogMessage;
@@ -160,6 +207,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		Button lastResultButton = (Button) findViewById(R.id.lastResultButton);
 		lastResultButton.setOnClickListener(onLastResultClickListener);
 
+		kingdomCountView = (TextView) findViewById(R.id.kingdomCount);
+
 		if (savedInstanceState != null) {
 			dialogMessage = savedInstanceState.getString("dialogMessage");
 			if(dataReader.getData() != null) {
@@ -208,6 +257,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 
 	@Override
 	protected void onPause() {
+		cancelShuffle();
+		cancelKingdomCount();
 		dataReader.saveCardSelectorState(this, cardSelector);
 		super.onPause();
 	}
@@ -220,6 +271,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 
 	@Override
 	protected void onDestroy() {
+		cancelShuffle();
+		cancelKingdomCount();
 		super.onDestroy();
 	}
 
@@ -274,6 +327,22 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 					prefs.getInt("sort", CardComparator.SORT_SET_COST_NAME),
 					onSortClickListener).create();
 		}
+		case DIALOG_SHUFFLE: {
+			ProgressDialog progressDialog = new ProgressDialog(this);
+			progressDialog.setMessage(getResources().getString(R.string.shuffle_dialog_message));
+			progressDialog.setIndeterminate(true);
+			progressDialog.setCanceledOnTouchOutside(false);
+			progressDialog.setOnCancelListener(onShuffleCancelListener);
+			progressDialog.setButton(DialogInterface.BUTTON_NEGATIVE, getResources().getString(R.string.cancel), onShuffleCancelClickListener);
+			return progressDialog;
+		}
+		case DIALOG_STATISTICS: {
+			AlertDialog.Builder builder = new AlertDialog.Builder(this);
+			return builder.setTitle(R.string.statistics_dialog_title).setMessage(formatStatistics())
+					.setIcon(android.R.drawable.ic_dialog_info)
+					.setPositiveButton(R.string.ok, null)
+					.setNeutralButton(R.string.statistics_reset, onStatisticsResetClickListener).create();
+		}
 		case DIALOG_MINMAX: {
 			AlertDialog.Builder builder = new AlertDialog.Builder(this);
 			AlertDialog alertDialog = builder.setItems(
@@ -321,6 +390,11 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 			alertDialog.setMessage(dialogMessage);
 			break;
 		}
+		case DIALOG_STATISTICS: {
+			AlertDialog alertDialog = (AlertDialog) dialog;
+			alertDialog.setMessage(formatStatistics());
+			break;
+		}
 		default:
 			break;
 		}
@@ -376,6 +450,57 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		showDialog(DIALOG_SOLVE_ERROR);
 	}
 
+	/**
+	 * Shows the error, together with the rules that conflict if any were found.
+	 */
+	private void showSolveErrorDialog(SolveError error, List<ConflictingRule> conflict) {
+		String message = Localise.getSolveErrorMessage(error, this);
+		if (conflict != null && !conflict.isEmpty()) {
+			message += "\n\n" + getString(R.string.solveerror_conflict, describeConflict(conflict));
+		}
+		showSolveErrorDialog(message);
+	}
+
+	private String describeConflict(List<ConflictingRule> conflict) {
+		StringBuilder description = new StringBuilder();
+		for (ConflictingRule rule : conflict) {
+			if (description.length() > 0) {
+				description.append(" + ");
+			}
+			String name = getLocalisedName(rule.getGroupOrCard());
+			switch (rule.getKind()) {
+			case REQUIRED_CARD:
+				description.append(getString(R.string.conflict_required, name));
+				break;
+			case EXCLUDED_GROUP:
+			case EXCLUDED_CARD:
+				description.append(getString(R.string.conflict_excluded, name));
+				break;
+			default:
+				Limit limit = rule.getLimit();
+				if (limit.getMaximum() == Integer.MAX_VALUE) {
+					description.append(getString(R.string.conflict_minimum, name, limit.getMinimum()));
+				} else if (limit.getMinimum() == 0) {
+					description.append(getString(R.string.conflict_maximum, name, limit.getMaximum()));
+				} else {
+					description.append(getString(R.string.conflict_between, name, limit.getMinimum(), limit.getMaximum()));
+				}
+				if (limit.hasCondition()) {
+					description.append(' ').append(getString(R.string.conflict_condition, getLocalisedName(limit.getCondition())));
+				}
+				break;
+			}
+		}
+		return description.toString();
+	}
+
+	private String getLocalisedName(GroupOrCard groupOrCard) {
+		if (groupOrCard.isCard()) {
+			return Localise.getCardName(groupOrCard.getName(), this);
+		}
+		return Localise.getSetName(groupOrCard.getName(), this);
+	}
+
 	private void showMinimumDialog(int maxValue) {
 		if(maxValue != 0) maxValue++;
 		if (maxValue >= dialogMimimumCount) {
@@ -415,6 +540,12 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 
 		item = menu.add(Menu.NONE, MENU_ABOUT, Menu.NONE, R.string.menu_about);
 		item.setIcon(android.R.drawable.stat_sys_warning);
+
+		if (cardSelector.isStatisticsEnabled()) {
+			// Only in debug builds, see Application
+			item = menu.add(Menu.NONE, MENU_STATISTICS, Menu.NONE, R.string.menu_statistics);
+			item.setIcon(android.R.drawable.ic_menu_info_details);
+		}
 				
 		return super.onCreateOptionsMenu(menu);
 	}
@@ -443,6 +574,9 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		case MENU_ABOUT:
 			showAbout();
 			return true;
+		case MENU_STATISTICS:
+			showDialog(DIALOG_STATISTICS);
+			return true;
 		default:
 			return super.onOptionsItemSelected(item);
 		}
@@ -464,21 +598,203 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		cardSelector.clear();
 		constraintAdapter.notifyDataSetChanged();
 		inExAdapter.notifyDataSetChanged();
+		updateKingdomCount();
 		Toast.makeText(this, R.string.toast_all_cleared, Toast.LENGTH_SHORT)
 				.show();
 	}
 
+	/**
+	 * Starts shuffling in the background, showing a dialog to cancel it until it's done.<br/>
+	 * Only one shuffle runs at a time, tapping shuffle again while one is running does nothing.
+	 */
 	private void doShuffle() {
-		Application application = (Application) getApplication();
-		try {
-			application.setResult(cardSelector.generate(dataReader.getData()));
-			startActivity(new Intent(getApplicationContext(),
-					ResultActivity.class));
-		} catch (SolveError e) {
-			showSolveErrorDialog(getResources().getString(e.getResourceId()));
+		if (shuffleCancellation != null) {
+			return;
+		}
+		final CancellationToken cancellation = new CancellationToken();
+		final Data data = dataReader.getData();
+		shuffleCancellation = cancellation;
+		showDialog(DIALOG_SHUFFLE);
+
+		shuffleExecutor.execute(new Runnable() {
+			public void run() {
+				Result result = null;
+				SolveError error = null;
+				List<ConflictingRule> conflict = null;
+				try {
+					try {
+						result = cardSelector.generate(data, SHUFFLE_BUDGET_MILLIS, cancellation, null);
+					} catch (SolveError e) {
+						error = e;
+						if (!(e instanceof SolveTimeout) && !cancellation.isCancelled()) {
+							// Worked out here as well, it can take a moment
+							conflict = cardSelector.findConflict(data, CONFLICT_BUDGET_MILLIS);
+						}
+					}
+				} catch (Throwable e) {
+					// Out of memory or a bug, still close the dialog so the user can try again
+					Log.e(TAG, "Shuffle failed", e);
+				} finally {
+					postShuffleDone(cancellation, result, error, conflict);
+				}
+			}
+		});
+	}
+
+	private void postShuffleDone(final CancellationToken cancellation, final Result result, final SolveError error,
+			final List<ConflictingRule> conflict) {
+		handler.post(new Runnable() {
+			public void run() {
+				if (cancellation != shuffleCancellation || cancellation.isCancelled()) {
+					// Cancelled, or the activity was paused in the meantime
+					return;
+				}
+				shuffleCancellation = null;
+				removeDialog(DIALOG_SHUFFLE);
+				if (result != null) {
+					application.setResult(result);
+					startActivity(new Intent(getApplicationContext(),
+							ResultActivity.class));
+				} else if (error != null) {
+					showSolveErrorDialog(error, conflict);
+				} else {
+					showSolveErrorDialog(getString(R.string.shuffle_failed));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops the shuffle running in the background, if any.
+	 */
+	private void cancelShuffle() {
+		if (shuffleCancellation != null) {
+			shuffleCancellation.cancel();
+			shuffleCancellation = null;
+			removeDialog(DIALOG_SHUFFLE);
 		}
 	}
 
+	/**
+	 * Starts counting the kingdoms the rules allow in the background, cancelling the count for the rules before.<br/>
+	 * Called after every edit of the rules, the count is shown below the tabs once it's done.
+	 */
+	private void updateKingdomCount() {
+		cancelKingdomCount();
+		final CancellationToken cancellation = new CancellationToken();
+		final Data data = dataReader.getData();
+		countCancellation = cancellation;
+		kingdomCountView.setText(R.string.kingdom_count_counting);
+
+		countExecutor.execute(new Runnable() {
+			public void run() {
+				if (cancellation.isCancelled()) {
+					// Edited again before this count started
+					return;
+				}
+				BigInteger count = null;
+				SolveError error = null;
+				try {
+					count = cardSelector.countKingdoms(data, COUNT_BUDGET_MILLIS, cancellation);
+				} catch (SolveError e) {
+					error = e;
+				} catch (Throwable e) {
+					Log.e(TAG, "Counting kingdoms failed", e);
+				} finally {
+					postKingdomCount(cancellation, count, error);
+				}
+			}
+		});
+	}
+
+	private void postKingdomCount(final CancellationToken cancellation, final BigInteger count, final SolveError error) {
+		handler.post(new Runnable() {
+			public void run() {
+				if (cancellation != countCancellation || cancellation.isCancelled()) {
+					// The rules changed, or the activity was paused in the meantime
+					return;
+				}
+				countCancellation = null;
+				if (count != null) {
+					kingdomCountView.setText(formatKingdomCount(count));
+				} else if (error instanceof SolveTimeout) {
+					kingdomCountView.setText(R.string.kingdom_count_timeout);
+				} else if (error != null && error.getReason() == SolveError.Reason.TOO_COMPLEX_TO_COUNT) {
+					kingdomCountView.setText(R.string.kingdom_count_too_complex);
+				} else {
+					kingdomCountView.setText("");
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops the count running in the background, if any.
+	 */
+	private void cancelKingdomCount() {
+		if (countCancellation != null) {
+			countCancellation.cancel();
+			countCancellation = null;
+		}
+	}
+
+	private String formatKingdomCount(BigInteger count) {
+		if (count.signum() == 0) {
+			return getString(R.string.kingdom_count_none);
+		}
+		final String number;
+		if (count.compareTo(MAX_FULL_COUNT) < 0) {
+			number = NumberFormat.getIntegerInstance().format(count);
+		} else {
+			// e.g. 3.2 x 10^15, with the exponent in superscript
+			final int exponent = count.toString().length() - 1;
+			final String mantissa = String.format("%.1f", new BigDecimal(count).movePointLeft(exponent));
+			final StringBuilder power = new StringBuilder();
+			for (char digit : String.valueOf(exponent).toCharArray()) {
+				power.append(SUPERSCRIPT_DIGITS.charAt(digit - '0'));
+			}
+			number = mantissa + " \u00d7 10" + power;
+		}
+		final int quantity = count.min(BigInteger.valueOf(Integer.MAX_VALUE)).intValue();
+		return getResources().getQuantityString(R.plurals.kingdom_count, quantity, number);
+	}
+
+	/**
+	 * Writes out the statistics of the shuffles since the app started or the statistics were reset, one per line.
+	 */
+	private String formatStatistics() {
+		SolverStatistics statistics = cardSelector.getStatistics();
+		if (statistics == null) {
+			return "";
+		}
+		StringBuilder text = new StringBuilder();
+		text.append(String.format(Locale.US, "Kingdoms: %d\n", statistics.getKingdoms()));
+		text.append(String.format(Locale.US, "Nodes: %d\n", statistics.getNodes()));
+		text.append(String.format(Locale.US, "Backtracks: %d\n", statistics.getBacktracks()));
+		text.append(String.format(Locale.US, "Nogood hits/misses: %d/%d\n", statistics.getNogoodHits(),
+				statistics.getNogoodMisses()));
+		text.append(String.format(Locale.US, "Nogood evictions: %d\n", statistics.getNogoodEvictions()));
+		text.append(String.format(Locale.US, "Limit checks: %d\n", statistics.getLimitChecks()));
+		text.append(String.format(Locale.US, "Maximum/minimum prunes: %d/%d\n", statistics.getMaximumPrunes(),
+				statistics.getMinimumPrunes()));
+		text.append(String.format(Locale.US, "Removed candidates: %d\n", statistics.getRemovedCandidates()));
+		text.append(String.format(Locale.US, "Picks: %d from %.1f candidates (at most %d)\n", statistics.getPicks(),
+				statistics.getAverageCandidatePool(), statistics.getMaxCandidatePool()));
+		text.append(String.format(Locale.US, "Depth: %d", statistics.getMaxDepth()));
+		for (SolverStatistics.Phase phase : SolverStatistics.Phase.values()) {
+			text.append(String.format(Locale.US, "\n%s: %.2f ms", phase.name().toLowerCase(Locale.US),
+					statistics.getPhaseNanos(phase) / 1e6));
+		}
+		return text.toString();
+	}
+
+	private android.content.DialogInterface.OnClickListener onStatisticsResetClickListener = new android.content.DialogInterface.OnClickListener() {
+		public void onClick(DialogInterface dialog, int which) {
+			// Enabling them again starts over from zero
+			cardSelector.setStatisticsEnabled(true);
+		}
+	};
+
 	private void showAbout() {
 		startActivity(new Intent(getApplicationContext(),
 				ReleaseNotesActivity.class));
@@ -510,6 +826,7 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 			if (parent.getId() == R.id.inexList) {
 				Object cardOrGroup = inExAdapter.getItem(position);
 				cardSelector.cycleIncludeExclude(cardOrGroup);
+				updateKingdomCount();
 
 				CardOrGroupHolder holder = (CardOrGroupHolder) view.getTag();
 				holder.setCheckBox(cardSelector, cardOrGroup);
@@ -526,6 +843,7 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 						cardSelector.addRequiredCard(card);
 						holder.setRequiredCheckBox(true);
 					}
+					updateKingdomCount();
 				} else { // cardOrGroup instanceof Group
 					selectedGroup = (Group) cardOrGroup;
 
@@ -590,6 +908,18 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		}
 	};
 
+	private DialogInterface.OnCancelListener onShuffleCancelListener = new DialogInterface.OnCancelListener() {
+		public void onCancel(DialogInterface dialog) {
+			cancelShuffle();
+		}
+	};
+
+	private android.content.DialogInterface.OnClickListener onShuffleCancelClickListener = new android.content.DialogInterface.OnClickListener() {
+		public void onClick(DialogInterface dialog, int which) {
+			cancelShuffle();
+		}
+	};
+
 	private OnClickListener onLastResultClickListener = new OnClickListener() {
 		public void onClick(View v) {
 			showLastResult();
@@ -637,10 +967,21 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 			case 3:
 				cardSelector.removeLimit(selectedGroup);
 				constraintAdapter.notifyDataSetChanged();
+				updateKingdomCount();
 			}
 		}
 	};
 
+	/**
+	 * Warns right away when the changed limit makes the rules impossible to satisfy, instead of waiting for a shuffle to fail.
+	 */
+	private void checkRules() {
+		SolveError error = cardSelector.checkRules(dataReader.getData());
+		if(error != null) {
+			Toast.makeText(this, Localise.getSolveErrorMessage(error, this), Toast.LENGTH_LONG).show();
+		}
+	}
+
 	private android.content.DialogInterface.OnClickListener onMinClickListener = new android.content.DialogInterface.OnClickListener() {
 		public void onClick(DialogInterface dialog, int which) {
 			if(which == 1) {
@@ -651,6 +992,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 				cardSelector.setLimitMinimum(selectedGroup, which);
 				cardSelector.setCondition(selectedGroup, null);
 				constraintAdapter.notifyDataSetChanged();
+				checkRules();
+				updateKingdomCount();
 			}
 						
 			dialog.dismiss();
@@ -661,6 +1004,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		public void onClick(DialogInterface dialog, int which) {
 			cardSelector.setLimitMaximum(selectedGroup, which);
 			constraintAdapter.notifyDataSetChanged();
+			checkRules();
+			updateKingdomCount();
 			dialog.dismiss();
 		}
 	};
@@ -686,6 +1031,8 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 		constraintAdapter.notifyDataSetChanged();		
 		inExAdapter.refreshSections();
 		inexFastScrollView.listItemsChanged();
+		// The rules may have changed on another screen, or with the settings
+		updateKingdomCount();
 	}
 
 	private static class InExAdapter extends SectionedCardOrGroupAdapter {
@@ -715,7 +1062,7 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 
 				holder.setName(Localise.getCardName(card.getName(), getContext()));
 				holder.setDescription(Localise.getSetName(card.getSet(), getContext()));
-				holder.setIconValue(card.getCost());
+				holder.setIconValue(card.getCostValue());
 				holder.setCheckBox(cardSelector, card);
 			} else if (cardOrGroup instanceof Group) {
 				Group group = (Group) cardOrGroup;
@@ -755,15 +1102,15 @@ public class SelectActivity extends TabActivity implements OnScrollListener {
 
 				holder.setName(Localise.getCardName(card.getName(), getContext()));
 				holder.setDescription(Localise.getSetName(card.getSet(), getContext()));
-				holder.setIconValue(card.getCost());
+				holder.setIconValue(card.getCostValue());
 				holder.setRequiredCheckBox(cardSelector.hasRequiredCard(card));
 			} else if (cardOrGroup instanceof Group) {
 				Group group = (Group) cardOrGroup;
 
 				holder.setGroupName(Localise.getSetName(group.getName(), getContext()), group.getCards().size());
 				holder.setDescription(Localise.getSetDescription(group.getName(), getContext()));
-				if (cardSelector.hasLimit(group)) {
-					Limit rule = cardSelector.getLimit(group);
+				Limit rule = cardSelector.getLimit(group);
+				if (rule != null) {
 					holder.setMinValue(rule.getMinimum(), rule.getCondition() != null);
 					holder.setMaxValue(rule.getMaximum());
 				} else {
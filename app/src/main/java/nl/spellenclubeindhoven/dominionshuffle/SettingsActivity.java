@@ -15,6 +15,7 @@ import android.preference.PreferenceGroup;
 public class SettingsActivity extends PreferenceActivity implements OnSharedPreferenceChangeListener {
 
     public static String CARDS_TO_DRAW = "cardsToDraw";
+    public static String UNIFORM_SAMPLING = "uniformSampling";
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
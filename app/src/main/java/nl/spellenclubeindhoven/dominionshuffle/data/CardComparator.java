@@ -61,13 +61,13 @@ public class CardComparator implements Comparator<Object> {
 			
 			switch(sort) {
 			case SORT_COST_SET_NAME:
-				result = card1.getCost().compareTo(card2.getCost());
+				result = card1.getCostValue().compareTo(card2.getCostValue());
 				if(result == 0) result = collator.compare(card1.getSet(), card2.getSet());
 				if(result == 0) result = collator.compare(card1Name, card2Name);
 				return result;
 			case SORT_SET_COST_NAME:
 				result = collator.compare(card1.getSet(), card2.getSet());
-				if(result == 0) result = card1.getCost().compareTo(card2.getCost());
+				if(result == 0) result = card1.getCostValue().compareTo(card2.getCostValue());
 				if(result == 0) result = collator.compare(card1Name, card2Name);
 				return result;
 			case SORT_SET_NAME:
@@ -75,7 +75,7 @@ public class CardComparator implements Comparator<Object> {
 				if(result == 0) result = collator.compare(card1Name, card2Name);
 				return result;
 			case SORT_COST_NAME:
-				result = card1.getCost().compareTo(card2.getCost());
+				result = card1.getCostValue().compareTo(card2.getCostValue());
 				if(result == 0) result = collator.compare(card1Name, card2Name);
 				return result;
 			case SORT_NAME:
@@ -0,0 +1,79 @@
+package nl.spellenclubeindhoven.dominionshuffle.benchmark;
+
+import org.json.JSONException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelectorSettings;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+import nl.spellenclubeindhoven.dominionshuffle.data.FixedSettings;
+
+/**
+ * Reads the card database shipped with the app, and the rule presets the benchmarks run with.<br/>
+ * The presets are stored rules, as saved by {@link CardSelector#toJson()}:
+ * <ul>
+ * <li>default: all cards with the rules a new install starts with, including those for Allies and Liaisons</li>
+ * <li>single_expansion: the cards of one expansion only</li>
+ * <li>heavy: many minimums and maximums on top of the default rules</li>
+ * <li>near_infeasible: minimums on two expansions that take up the whole draw, with few solutions left</li>
+ * </ul>
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    /**
+     * Reads the JSON of res/raw/data.json_gz, found through the dominionshuffle.data system property.
+     */
+    static String readDataJson() throws IOException {
+        final String path = System.getProperty("dominionshuffle.data");
+        if (path == null) {
+            throw new IllegalStateException("Set dominionshuffle.data to the path of res/raw/data.json_gz");
+        }
+        return readString(new GZIPInputStream(new FileInputStream(path)));
+    }
+
+    static Data readData() throws IOException, JSONException {
+        return Data.read(readDataJson());
+    }
+
+    static String readPreset(String preset) throws IOException {
+        final InputStream inputStream = BenchmarkData.class.getResourceAsStream("/presets/" + preset + ".json");
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Unknown preset " + preset);
+        }
+        return readString(inputStream);
+    }
+
+    /**
+     * Creates a CardSelector with the rules of the preset.
+     */
+    static CardSelector createCardSelector(String preset, Data data) throws IOException, JSONException {
+        return createCardSelector(preset, data, new FixedSettings());
+    }
+
+    static CardSelector createCardSelector(String preset, Data data, CardSelectorSettings settings) throws IOException, JSONException {
+        final CardSelector cardSelector = new CardSelector(settings);
+        cardSelector.fromJson(readPreset(preset), data);
+        return cardSelector;
+    }
+
+    private static String readString(InputStream inputStream) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package nl.spellenclubeindhoven.dominionshuffle.benchmark;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+import nl.spellenclubeindhoven.dominionshuffle.data.FixedSettings;
+import nl.spellenclubeindhoven.dominionshuffle.data.Result;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+
+/**
+ * Counts the kingdoms of each preset, and generates the first kingdom with equal chances, from a new CardSelector
+ * every time so nothing counted before is reused.<br/>
+ * The heavy preset has too many rules to count, so for it these measure how long counting takes to give up, and
+ * generating to fall back to the search. Neither should run out of memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class CountBenchmark {
+    @Param({"default", "single_expansion", "heavy", "near_infeasible"})
+    public String preset;
+
+    private Data data;
+    private CardSelector cardSelector;
+
+    @Setup(Level.Trial)
+    public void setUpData() throws IOException, JSONException {
+        data = BenchmarkData.readData();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException, JSONException {
+        cardSelector = BenchmarkData.createCardSelector(preset, data, new FixedSettings(Constants.DEFAULT_CARDS_TO_DRAW, true));
+    }
+
+    /**
+     * @return the count, or the error counting gave up with
+     */
+    @Benchmark
+    public Object countKingdoms() {
+        try {
+            return cardSelector.countKingdoms(data);
+        } catch (SolveError e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Result generateUniform() throws SolveError {
+        return cardSelector.generate(data, 0L);
+    }
+}
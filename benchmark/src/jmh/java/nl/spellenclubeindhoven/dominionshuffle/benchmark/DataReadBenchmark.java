@@ -0,0 +1,43 @@
+package nl.spellenclubeindhoven.dominionshuffle.benchmark;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+
+/**
+ * Parses the card database, as done on every start of the app. The file is unzipped beforehand, so only the
+ * parsing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataReadBenchmark {
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = BenchmarkData.readDataJson();
+    }
+
+    @Benchmark
+    public Data read() throws JSONException {
+        return Data.read(json);
+    }
+}
@@ -0,0 +1,56 @@
+package nl.spellenclubeindhoven.dominionshuffle.benchmark;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+import nl.spellenclubeindhoven.dominionshuffle.data.Result;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+
+/**
+ * Generates kingdoms for each preset. Throughput gives the kingdoms per millisecond, the sample time mode the
+ * percentiles, of which p99 shows the slow searches.<br/>
+ * The rules don't change between kingdoms, so the SolverPlan is only worked out during warmup, as when the user
+ * shuffles again. Each kingdom has the next seed, so every run generates the same kingdoms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateBenchmark {
+    @Param({"default", "single_expansion", "heavy", "near_infeasible"})
+    public String preset;
+
+    private Data data;
+    private CardSelector cardSelector;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JSONException {
+        data = BenchmarkData.readData();
+        cardSelector = BenchmarkData.createCardSelector(preset, data);
+        seed = 0;
+    }
+
+    @Benchmark
+    public Result generate() throws SolveError {
+        return cardSelector.generate(data, seed++);
+    }
+}
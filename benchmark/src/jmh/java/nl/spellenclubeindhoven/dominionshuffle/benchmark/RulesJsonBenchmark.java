@@ -0,0 +1,60 @@
+package nl.spellenclubeindhoven.dominionshuffle.benchmark;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+
+/**
+ * Saves and loads the rules of each preset, as done when the app is left and started again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RulesJsonBenchmark {
+    @Param({"default", "single_expansion", "heavy", "near_infeasible"})
+    public String preset;
+
+    private Data data;
+    private String json;
+    private CardSelector cardSelector;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JSONException {
+        data = BenchmarkData.readData();
+        json = BenchmarkData.readPreset(preset);
+        cardSelector = BenchmarkData.createCardSelector(preset, data);
+    }
+
+    @Benchmark
+    public String toJson() throws JSONException {
+        return cardSelector.toJson();
+    }
+
+    /**
+     * Loads the rules into the same CardSelector each time, as fromJson replaces all of them.
+     */
+    @Benchmark
+    public CardSelector fromJson() throws JSONException {
+        cardSelector.fromJson(json, data);
+        return cardSelector;
+    }
+}
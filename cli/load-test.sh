@@ -0,0 +1,41 @@
+#!/bin/sh
+# Sends the same rules to a running kingdom server from a number of clients at once, then prints how the
+# requests went and the latencies the server measured.
+#
+# Usage: load-test.sh <rules.json> [requests] [clients] [url]
+# e.g.   load-test.sh benchmark/src/jmh/resources/presets/heavy.json 2000 16
+
+RULES=$1
+REQUESTS=${2:-1000}
+CLIENTS=${3:-8}
+URL=${4:-http://127.0.0.1:8080}
+
+if [ -z "$RULES" ] || [ ! -f "$RULES" ]; then
+    echo "Usage: $0 <rules.json> [requests] [clients] [url]" >&2
+    exit 2
+fi
+
+RESULTS=$(mktemp)
+trap 'rm -f "$RESULTS"' EXIT
+
+START=$(date +%s)
+seq "$REQUESTS" | xargs -P "$CLIENTS" -I {} \
+    curl -s -o /dev/null -w '%{http_code} %{time_total}\n' -H 'Content-Type: application/json' \
+        --data-binary "@$RULES" "$URL/generate" > "$RESULTS"
+ELAPSED=$(($(date +%s) - START))
+
+sort -k2 -n "$RESULTS" | awk -v elapsed="$ELAPSED" '
+    { status[$1]++; times[NR] = $2 }
+    END {
+        printf "%d requests in %d s", NR, elapsed
+        if (elapsed > 0) printf ", %.1f requests/s", NR / elapsed
+        printf "\n"
+        for (code in status) printf "  HTTP %s: %d\n", code, status[code]
+        p50 = int(NR * 0.5); if (p50 < 1) p50 = 1
+        p99 = int(NR * 0.99); if (p99 < 1) p99 = 1
+        printf "  client latency p50 %.1f ms, p99 %.1f ms, max %.1f ms\n", times[p50] * 1000, times[p99] * 1000, times[NR] * 1000
+    }'
+
+echo "Server statistics:"
+curl -s "$URL/stats"
+echo
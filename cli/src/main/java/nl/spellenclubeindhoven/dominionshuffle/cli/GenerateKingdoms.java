@@ -0,0 +1,202 @@
+package nl.spellenclubeindhoven.dominionshuffle.cli;
+
+import org.json.JSONException;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+import nl.spellenclubeindhoven.dominionshuffle.data.BatchStatistics;
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.ConflictingRule;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+import nl.spellenclubeindhoven.dominionshuffle.data.FixedSettings;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+
+/**
+ * Generates kingdoms in bulk from rules saved by the app, i.e. its card_selector.json or a slotN.json.<br/>
+ * The card database is read once, and the kingdoms are generated as one batch over all cores, each written as
+ * soon as it's found. The same rules, seed and count always give the same kingdoms, only their order can differ
+ * when generating on more than one thread.
+ */
+public class GenerateKingdoms {
+    private static final String USAGE = "Usage: generate-kingdoms --rules <file> [options]\n"
+            + "  --rules <file>    rules saved by the app, e.g. card_selector.json or slot1.json\n"
+            + "  --data <file>     card database, res/raw/data.json_gz of the app (default: the dominionshuffle.data property)\n"
+            + "  --count <n>       number of kingdoms to generate (default 1)\n"
+            + "  --seed <n>        seed of the batch (default random)\n"
+            + "  --threads <n>     threads to generate on (default one per core)\n"
+            + "  --format <f>      jsonl or csv (default jsonl)\n"
+            + "  --output <file>   file to write the kingdoms to (default standard output)\n"
+            + "  --cards <n>       kingdom cards to draw (default " + Constants.DEFAULT_CARDS_TO_DRAW + ")\n"
+            + "  --uniform         give every kingdom the same chance, rather than searching; Events and the like\n"
+            + "                    only come in when a rule asks for a minimum of them\n";
+
+    private String rulesPath;
+    private String dataPath = System.getProperty("dominionshuffle.data");
+    private int count = 1;
+    private Long seed;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private OutputFormat format = OutputFormat.JSONL;
+    private String outputPath;
+    private int cardsToDraw = Constants.DEFAULT_CARDS_TO_DRAW;
+    private boolean uniformSampling;
+
+    public static void main(String[] args) {
+        final GenerateKingdoms generateKingdoms = new GenerateKingdoms();
+        try {
+            generateKingdoms.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        System.exit(generateKingdoms.run());
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String option = args[i];
+            if (option.equals("--uniform")) {
+                uniformSampling = true;
+                continue;
+            }
+            if (option.equals("--help")) {
+                throw new IllegalArgumentException("Generates kingdoms from saved rules");
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            final String value = args[++i];
+            switch (option) {
+                case "--rules":
+                    rulesPath = value;
+                    break;
+                case "--data":
+                    dataPath = value;
+                    break;
+                case "--count":
+                    count = parseNumber(option, value, 1);
+                    break;
+                case "--seed":
+                    try {
+                        seed = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Not a number for --seed: " + value);
+                    }
+                    break;
+                case "--threads":
+                    threads = parseNumber(option, value, 1);
+                    break;
+                case "--format":
+                    try {
+                        format = OutputFormat.valueOf(value.toUpperCase(Locale.US));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown format " + value);
+                    }
+                    break;
+                case "--output":
+                    outputPath = value;
+                    break;
+                case "--cards":
+                    cardsToDraw = parseNumber(option, value, 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (rulesPath == null) {
+            throw new IllegalArgumentException("No rules given");
+        }
+        if (dataPath == null) {
+            throw new IllegalArgumentException("No card database given");
+        }
+    }
+
+    static int parseNumber(String option, String value, int minimum) {
+        final int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+        }
+        if (number < minimum) {
+            throw new IllegalArgumentException(option + " must be at least " + minimum);
+        }
+        return number;
+    }
+
+    /**
+     * @return the exit code: 0 when all kingdoms were written, 1 if the rules can't be satisfied, 2 on other errors
+     */
+    private int run() {
+        final Data data;
+        final CardSelector cardSelector = new CardSelector(new FixedSettings(cardsToDraw, uniformSampling));
+        try {
+            data = Data.read(readString(new GZIPInputStream(new FileInputStream(dataPath))));
+            cardSelector.fromJson(readString(new FileInputStream(rulesPath)), data);
+        } catch (IOException | JSONException e) {
+            System.err.println("Can not read " + e.getMessage());
+            return 2;
+        }
+        cardSelector.setParallelSearches(threads);
+
+        final long batchSeed = seed != null ? seed : new Random().nextLong();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(openOutput(), "UTF-8"), 1 << 16)) {
+            format.writeHeader(writer);
+            final BatchStatistics statistics = cardSelector.generateBatch(data, count, batchSeed, result -> {
+                try {
+                    format.write(result, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.err.println("Seed " + batchSeed + ": " + statistics);
+            return 0;
+        } catch (SolveError e) {
+            System.err.println(e.getMessage());
+            final List<ConflictingRule> conflict = cardSelector.findConflict(data, 1000);
+            if (conflict != null && !conflict.isEmpty()) {
+                System.err.println("These rules can not be used together: " + conflict);
+            }
+            return 1;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Can not write the kingdoms: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private OutputStream openOutput() throws IOException {
+        if (outputPath == null) {
+            // Closed together with the writer, which is fine as nothing else is written to it
+            return System.out;
+        }
+        return new FileOutputStream(outputPath);
+    }
+
+    static String readString(InputStream inputStream) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package nl.spellenclubeindhoven.dominionshuffle.cli;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.ConflictingRule;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+import nl.spellenclubeindhoven.dominionshuffle.data.FixedSettings;
+import nl.spellenclubeindhoven.dominionshuffle.data.Result;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveError;
+import nl.spellenclubeindhoven.dominionshuffle.data.SolveTimeout;
+
+/**
+ * Serves kingdoms over HTTP: POST rules in the format of {@link CardSelector#toJson()} to /generate to get a kingdom
+ * in the format of {@link Result#toJson()}, GET /stats for the counts of requests and their latencies.
+ * <p>
+ * Every request is handled on a thread of its own, a virtual thread on Java 21 and up. At most one request per
+ * worker generates at a time, a number of requests more wait for a worker, and any requests beyond those are
+ * turned away with 503 and a Retry-After, rather than piling up. Requests with rules asked for before reuse the
+ * CardSelector, and so the plan, of the {@link PlanCache}.
+ * <p>
+ * Responses:
+ * <ul>
+ * <li>200 with the kingdom</li>
+ * <li>400 when the rules can't be read</li>
+ * <li>413 when the rules are over {@value #MAX_BODY_BYTES} bytes</li>
+ * <li>422 when the rules can't be satisfied, with the reason, and the rules that conflict if found</li>
+ * <li>503 when all workers are busy and the queue is full, or no kingdom was found in time</li>
+ * </ul>
+ */
+public class KingdomServer {
+    private static final String USAGE = "Usage: kingdom-server [options]\n"
+            + "  --data <file>        card database, res/raw/data.json_gz of the app (default: the dominionshuffle.data property)\n"
+            + "  --host <address>     address to listen on (default 127.0.0.1)\n"
+            + "  --port <n>           port to listen on (default 8080)\n"
+            + "  --workers <n>        requests generating at once (default one per core)\n"
+            + "  --queue <n>          requests waiting for a worker before turning more away (default 64)\n"
+            + "  --plan-cache <n>     sets of rules to keep the plan of (default 64)\n"
+            + "  --budget <ms>        longest to search for a kingdom (default 5000)\n"
+            + "  --cards <n>          kingdom cards to draw (default " + Constants.DEFAULT_CARDS_TO_DRAW + ")\n"
+            + "  --uniform            give every kingdom the same chance, rather than searching; Events and the like\n"
+            + "                       only come in when a rule asks for a minimum of them\n";
+    private static final long CONFLICT_BUDGET_MILLIS = 100;
+    /**
+     * Most bytes of rules to read, rules with every card and group of the database take only a fraction of it
+     */
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private String dataPath = System.getProperty("dominionshuffle.data");
+    private String host = "127.0.0.1";
+    private int port = 8080;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int queue = 64;
+    private int planCacheSize = 64;
+    private long budgetMillis = 5000;
+    private int cardsToDraw = Constants.DEFAULT_CARDS_TO_DRAW;
+    private boolean uniformSampling;
+
+    private Data data;
+    private PlanCache planCache;
+    /**
+     * Permits for the requests generating or waiting to, taken without waiting
+     */
+    private Semaphore admitted;
+    /**
+     * Permits for the requests generating
+     */
+    private Semaphore generating;
+    final private LatencyHistogram latency = new LatencyHistogram();
+    final private AtomicLong solved = new AtomicLong();
+    final private AtomicLong unsatisfiable = new AtomicLong();
+    final private AtomicLong timedOut = new AtomicLong();
+    final private AtomicLong rejected = new AtomicLong();
+    final private AtomicLong badRequests = new AtomicLong();
+    final private AtomicLong tooLarge = new AtomicLong();
+
+    public static void main(String[] args) {
+        final KingdomServer server = new KingdomServer();
+        try {
+            server.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        try {
+            server.start();
+        } catch (IOException | JSONException e) {
+            System.err.println("Can not start: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String option = args[i];
+            if (option.equals("--uniform")) {
+                uniformSampling = true;
+                continue;
+            }
+            if (option.equals("--help")) {
+                throw new IllegalArgumentException("Serves kingdoms over HTTP");
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            final String value = args[++i];
+            switch (option) {
+                case "--data":
+                    dataPath = value;
+                    break;
+                case "--host":
+                    host = value;
+                    break;
+                case "--port":
+                    port = GenerateKingdoms.parseNumber(option, value, 0);
+                    break;
+                case "--workers":
+                    workers = GenerateKingdoms.parseNumber(option, value, 1);
+                    break;
+                case "--queue":
+                    queue = GenerateKingdoms.parseNumber(option, value, 0);
+                    break;
+                case "--plan-cache":
+                    planCacheSize = GenerateKingdoms.parseNumber(option, value, 1);
+                    break;
+                case "--budget":
+                    budgetMillis = GenerateKingdoms.parseNumber(option, value, 1);
+                    break;
+                case "--cards":
+                    cardsToDraw = GenerateKingdoms.parseNumber(option, value, 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (dataPath == null) {
+            throw new IllegalArgumentException("No card database given");
+        }
+    }
+
+    private void start() throws IOException, JSONException {
+        data = Data.read(GenerateKingdoms.readString(new GZIPInputStream(new FileInputStream(dataPath))));
+        planCache = new PlanCache(data, new FixedSettings(cardsToDraw, uniformSampling), planCacheSize);
+        admitted = new Semaphore(workers + queue);
+        generating = new Semaphore(workers);
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/generate", this::handleGenerate);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(createHandlerExecutor());
+        server.start();
+        System.err.println("Serving kingdoms on http://" + host + ":" + server.getAddress().getPort() + "/generate");
+    }
+
+    /**
+     * Creates the executor running every request on a thread of its own, virtual threads if the JVM has them.
+     */
+    private static ExecutorService createHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, createError("Use POST with the rules"));
+                return;
+            }
+            final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null && isOverMaximum(contentLength)) {
+                sendTooLarge(exchange);
+                return;
+            }
+            if (!admitted.tryAcquire()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, createError("Too many requests"));
+                return;
+            }
+            final long startTime = System.nanoTime();
+            try {
+                generate(exchange);
+            } finally {
+                admitted.release();
+                latency.record(System.nanoTime() - startTime);
+            }
+        } catch (JSONException e) {
+            send(exchange, 500, "{}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void generate(HttpExchange exchange) throws IOException, JSONException {
+        final String body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendTooLarge(exchange);
+            return;
+        }
+        final CardSelector cardSelector;
+        try {
+            cardSelector = planCache.get(new JSONObject(body));
+        } catch (JSONException e) {
+            badRequests.incrementAndGet();
+            send(exchange, 400, createError("Can not read the rules: " + e.getMessage()));
+            return;
+        }
+
+        try {
+            generating.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, createError("Interrupted"));
+            return;
+        }
+        try {
+            final Result result = cardSelector.generate(data, budgetMillis, null, null);
+            solved.incrementAndGet();
+            send(exchange, 200, result.toJson().toString());
+        } catch (SolveTimeout e) {
+            timedOut.incrementAndGet();
+            send(exchange, 503, createError(e).toString());
+        } catch (SolveError e) {
+            unsatisfiable.incrementAndGet();
+            final JSONObject error = createError(e);
+            final List<ConflictingRule> conflict = cardSelector.findConflict(data, CONFLICT_BUDGET_MILLIS);
+            if (conflict != null && !conflict.isEmpty()) {
+                for (ConflictingRule rule : conflict) {
+                    error.append("conflict", rule.toString());
+                }
+            }
+            send(exchange, 422, error.toString());
+        } finally {
+            generating.release();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            final JSONObject stats = new JSONObject();
+            stats.put("solved", solved.get());
+            stats.put("unsatisfiable", unsatisfiable.get());
+            stats.put("timedOut", timedOut.get());
+            stats.put("rejected", rejected.get());
+            stats.put("badRequests", badRequests.get());
+            stats.put("tooLarge", tooLarge.get());
+            stats.put("inFlight", workers + queue - admitted.availablePermits());
+            final JSONObject plans = new JSONObject();
+            plans.put("size", planCache.size());
+            plans.put("hits", planCache.getHits());
+            plans.put("misses", planCache.getMisses());
+            stats.put("planCache", plans);
+            stats.put("latency", latency.toJson());
+            send(exchange, 200, stats.toString(2));
+        } catch (JSONException e) {
+            send(exchange, 500, "{}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Reads the rules, stopping as soon as there are more than {@link #MAX_BODY_BYTES}, as Content-Length may be
+     * missing or wrong.
+     *
+     * @return the rules, or null if there are too many bytes of them
+     */
+    private static String readBody(InputStream inputStream) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (output.size() + read > MAX_BODY_BYTES) {
+                    return null;
+                }
+                output.write(buffer, 0, read);
+            }
+            return output.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static boolean isOverMaximum(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim()) > MAX_BODY_BYTES;
+        } catch (NumberFormatException e) {
+            // Left to reading the body
+            return false;
+        }
+    }
+
+    private void sendTooLarge(HttpExchange exchange) throws IOException {
+        tooLarge.incrementAndGet();
+        send(exchange, 413, createError("Rules over " + MAX_BODY_BYTES + " bytes"));
+    }
+
+    private static JSONObject createError(SolveError error) throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put("reason", error.getReason().name());
+        json.put("message", error.getMessage());
+        return json;
+    }
+
+    private static String createError(String message) {
+        return "{\"message\":" + JSONObject.quote(message) + "}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.spellenclubeindhoven.dominionshuffle.cli;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long requests took in buckets that each double in width, from 1 microsecond up to more than a minute.
+ * <br/>Recording is a single atomic increment, so it doesn't slow down the requests being measured. Percentiles are
+ * read as the upper end of the bucket they fall in, so they're at most twice the actual latency.
+ */
+class LatencyHistogram {
+    private static final int BUCKETS = 28;
+
+    /**
+     * Bucket i counts the latencies from 2^(i-1) up to 2^i microseconds, the last one all above
+     */
+    final private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        final long micros = Math.max(1, nanos / 1000);
+        final int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+        counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param fraction the part of the requests that were faster, e.g. 0.99 for p99
+     * @return the upper end of the bucket the percentile falls in, in microseconds, 0 if nothing was recorded
+     */
+    long getPercentileMicros(double fraction) {
+        final long[] snapshot = snapshot();
+        long count = 0;
+        for (long bucketCount : snapshot) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    JSONObject toJson() throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        json.put("p50Micros", getPercentileMicros(0.5));
+        json.put("p90Micros", getPercentileMicros(0.9));
+        json.put("p99Micros", getPercentileMicros(0.99));
+        json.put("p999Micros", getPercentileMicros(0.999));
+        final JSONArray buckets = new JSONArray();
+        final long[] snapshot = snapshot();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] > 0) {
+                final JSONObject bucket = new JSONObject();
+                if (i == BUCKETS - 1) {
+                    bucket.put("moreThanMicros", 1L << (i - 1));
+                } else {
+                    bucket.put("upToMicros", 1L << i);
+                }
+                bucket.put("count", snapshot[i]);
+                buckets.put(bucket);
+            }
+        }
+        json.put("buckets", buckets);
+        return json;
+    }
+
+    private long[] snapshot() {
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+}
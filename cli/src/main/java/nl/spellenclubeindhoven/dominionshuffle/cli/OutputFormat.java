@@ -0,0 +1,83 @@
+package nl.spellenclubeindhoven.dominionshuffle.cli;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.Card;
+import nl.spellenclubeindhoven.dominionshuffle.data.Result;
+
+/**
+ * How the generated kingdoms are written, one line per kingdom.
+ */
+enum OutputFormat {
+    /**
+     * JSON Lines, each line a result as written by {@link Result#toJson()}
+     */
+    JSONL {
+        @Override
+        void writeHeader(Writer writer) {
+        }
+
+        @Override
+        void write(Result result, Writer writer) throws IOException {
+            try {
+                writer.write(result.toJson().toString());
+            } catch (JSONException e) {
+                throw new IOException(e);
+            }
+            writer.write('\n');
+        }
+    },
+    /**
+     * Comma separated values, with the cards of a column separated by semicolons. Card names have neither.
+     */
+    CSV {
+        @Override
+        void writeHeader(Writer writer) throws IOException {
+            writer.write("seed,cards,baneCard,ferrymanExtraCard,obeliskCard,traitCards\n");
+        }
+
+        @Override
+        void write(Result result, Writer writer) throws IOException {
+            writer.write(result.getSeed() != null ? result.getSeed().toString() : "");
+            writer.write(',');
+            writeCards(result.getCards(), writer);
+            writer.write(',');
+            writeCard(result.getBaneCard(), writer);
+            writer.write(',');
+            writeCard(result.getFerrymanExtraCard(), writer);
+            writer.write(',');
+            writeCard(result.getObeliskCard(), writer);
+            writer.write(',');
+            writeCards(result.getTraitCards(), writer);
+            writer.write('\n');
+        }
+
+        private void writeCard(Card card, Writer writer) throws IOException {
+            if (card != null) {
+                writer.write(card.getName());
+            }
+        }
+
+        private void writeCards(List<Card> cards, Writer writer) throws IOException {
+            if (cards == null) {
+                return;
+            }
+            boolean first = true;
+            for (Card card : cards) {
+                if (!first) {
+                    writer.write(';');
+                }
+                writer.write(card.getName());
+                first = false;
+            }
+        }
+    };
+
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    abstract void write(Result result, Writer writer) throws IOException;
+}
@@ -0,0 +1,108 @@
+package nl.spellenclubeindhoven.dominionshuffle.cli;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelector;
+import nl.spellenclubeindhoven.dominionshuffle.data.CardSelectorSettings;
+import nl.spellenclubeindhoven.dominionshuffle.data.Data;
+
+/**
+ * Keeps a CardSelector for each set of rules recently asked for, keyed by the rules, so the plan it works out for
+ * them is reused by the next request with the same rules.<br/>
+ * The rules are keyed with the names in each list sorted, so the order they were saved in doesn't matter. Once
+ * there are more sets of rules than fit, the one used longest ago is dropped.
+ * <p>
+ * The CardSelectors are shared between requests: generating with the same rules on more than one thread at a
+ * time is fine, as long as nobody changes them.
+ */
+class PlanCache {
+    private static final String[] NAME_LISTS = {"includedGroups", "excludedGroups", "includedCards", "excludedCards", "requiredCards"};
+
+    final private Data data;
+    final private CardSelectorSettings settings;
+    final private Map<String, CardSelector> cardSelectors;
+    private long hits;
+    private long misses;
+
+    PlanCache(Data data, CardSelectorSettings settings, final int capacity) {
+        this.data = data;
+        this.settings = settings;
+        this.cardSelectors = new LinkedHashMap<String, CardSelector>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CardSelector> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the CardSelector for the rules, in the format of {@link CardSelector#toJson()}.
+     */
+    CardSelector get(JSONObject rules) throws JSONException {
+        final String key = createKey(rules);
+        synchronized (this) {
+            final CardSelector cardSelector = cardSelectors.get(key);
+            if (cardSelector != null) {
+                hits++;
+                return cardSelector;
+            }
+            misses++;
+        }
+
+        // Read outside of the lock, two requests with the same new rules at once just both read them
+        final CardSelector cardSelector = new CardSelector(settings);
+        cardSelector.fromJson(rules.toString(), data);
+        synchronized (this) {
+            cardSelectors.put(key, cardSelector);
+        }
+        return cardSelector;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return cardSelectors.size();
+    }
+
+    private static String createKey(JSONObject rules) throws JSONException {
+        final StringBuilder key = new StringBuilder();
+        for (String listName : NAME_LISTS) {
+            final JSONArray array = rules.optJSONArray(listName);
+            final List<String> names = new ArrayList<>();
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) {
+                    names.add(array.getString(i));
+                }
+            }
+            Collections.sort(names);
+            key.append(names).append('|');
+        }
+
+        final JSONArray array = rules.optJSONArray("rules");
+        final List<String> limits = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                final JSONObject limit = array.getJSONObject(i);
+                limits.add(limit.getString("group") + ' ' + limit.optString("min") + ' ' + limit.optString("max")
+                        + ' ' + limit.optString("condition"));
+            }
+        }
+        Collections.sort(limits);
+        key.append(limits);
+        return key.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Locale;
+
+/**
+ * How a batch of solutions from {@link CardSelector#generateBatch(Data, int, ResultSink)} went.
+ */
+public class BatchStatistics {
+    final private int count;
+    final private int threads;
+    final private long elapsedNanos;
+
+    public BatchStatistics(int count, int threads, long elapsedNanos) {
+        this.count = count;
+        this.threads = threads;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of solutions generated
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of threads the solutions were generated on
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the number of solutions generated per second, over the whole batch
+     */
+    public double getKingdomsPerSecond() {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d %s on %d %s in %.1f ms, %.1f kingdoms/s", count, count == 1 ? "kingdom" : "kingdoms",
+                threads, threads == 1 ? "thread" : "threads", elapsedNanos / 1e6, getKingdomsPerSecond());
+    }
+}
@@ -0,0 +1,18 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Lets another thread stop a generate, e.g. when the user presses cancel.<br/>
+ * The searches check the token before every card they try, so they stop soon after {@link #cancel()}.
+ * A token stays cancelled, use a new one for the next generate.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -27,22 +27,43 @@ import java.util.List;
 import java.util.Set;
 
 public class Card extends GroupOrCard {
+    /**
+     * Dense index of this card within its Data, used for the CardSet bitsets.
+     */
+    private final int id;
     private final String set;
     private final String cost;
+    private final Cost costValue;
     private final List<String> types;
+    /**
+     * The bits of the types, see {@link CardTypes}
+     */
+    private final long typeMask;
     /**
      * Basic and Non-Supply Cards do not count against those drawn,
      * and in addition will not be shown in the list unless a special condition requires them to be
      * (e.g. Platinum/Colony/Potion)
      **/
     private final boolean basicOrNonSupply;
+    /**
+     * Worked out once, as the CardSelector checks it for every card it adds or removes
+     */
+    private final boolean countsTowardDraw;
 
-    public Card(String name, String set, String cost, List<String> types, boolean basicOrNonSupply) {
+    public Card(int id, String name, String set, String cost, List<String> types, boolean basicOrNonSupply) {
         super(name);
+        this.id = id;
         this.set = set;
         this.cost = cost;
+        this.costValue = Cost.parse(cost);
         this.types = types;
+        this.typeMask = CardTypes.getMask(types);
         this.basicOrNonSupply = basicOrNonSupply;
+        this.countsTowardDraw = !basicOrNonSupply && (typeMask & CardTypes.NOT_DRAWN) == 0;
+    }
+
+    public int getId() {
+        return id;
     }
 
     public String getSet() {
@@ -53,14 +74,42 @@ public class Card extends GroupOrCard {
         return cost;
     }
 
+    /**
+     * Gets the cost parsed into its coins, potions, debt and modifiers, for sorting and showing it.
+     */
+    public Cost getCostValue() {
+        return costValue;
+    }
+
     public List<String> getTypes() {
         return types;
     }
 
+    public long getTypeMask() {
+        return typeMask;
+    }
+
+    /**
+     * Checks if the card has any of the types.
+     *
+     * @param types bits from {@link CardTypes}
+     */
+    public boolean hasType(long types) {
+        return (typeMask & types) != 0;
+    }
+
     public boolean isBasicOrNonSupply() {
         return basicOrNonSupply;
     }
 
+    /**
+     * Checks if the card counts against those drawn.<br/>
+     * E.g. Events, Basic Cards, Non-Supply Cards do not.
+     */
+    public boolean countsTowardDraw() {
+        return countsTowardDraw;
+    }
+
     @Override
     public String toString() {
         return "Card " + getName();
@@ -0,0 +1,1235 @@
+/*
+ * Copyright (C) 2011 Tim Kramp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+public class CardSelector {
+
+    /**
+     * Smallest groups first, so those are used first to satisfy minimum limits
+     */
+    final private static Comparator<Group> GROUP_ORDER = (g1, g2) -> {
+        final int g1Size = g1.getCards().size();
+        final int g2Size = g2.getCards().size();
+        if (g1Size != g2Size) {
+            return g1Size - g2Size;
+        }
+        return g1.getName().compareTo(g2.getName());
+    };
+
+    // Final Class variables
+    final private CardSelectorSettings settings;
+    // The live rules, only edited from one thread; other threads read the RuleSnapshot instead
+    final private Set<Group> includedGroups = new HashSet<>();
+    final private Set<Group> excludedGroups = new HashSet<>();
+    final private CardSet includedCards = new CardSet();
+    final private CardSet excludedCards = new CardSet();
+    final private CardSet requiredCards = new CardSet();
+    final private SortedMap<Group, Limit> allLimits = new TreeMap<>(GROUP_ORDER);
+    /**
+     * The rules as of the last edit, published again by every edit so generating never sees one halfway
+     */
+    private volatile RuleSnapshot ruleSnapshot;
+
+    private int version;
+    /**
+     * Number of threads to run the searches of a portfolio on, 1 to only search on the calling thread
+     */
+    private int parallelSearches = 1;
+    private static ExecutorService searchExecutor;
+    private volatile KingdomCounter kingdomCounter;
+    /**
+     * Statistics of the work done generating kingdoms, null while they're not collected
+     */
+    private volatile SolverStatistics statistics;
+    /**
+     * Where the statistics are written to, null to not write them
+     */
+    private volatile SolverLogger logger;
+
+    public CardSelector(CardSelectorSettings settings) {
+        this.settings = settings;
+        rulesChanged();
+    }
+
+    public Result generate(Data data) throws SolveError {
+        return generate(data, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Generates the kingdom for the seed. The same rules, Data and seed always give the same kingdom, whatever
+     * the number of parallel searches, so a kingdom can be made again from the seed stored in its Result.
+     */
+    public Result generate(Data data, long seed) throws SolveError {
+        return generate(ruleSnapshot, data, seed);
+    }
+
+    /**
+     * Generates the kingdom for the seed from rules taken earlier, whatever the rules are now.<br/>
+     * Any number of threads can generate from the same snapshot at once.
+     *
+     * @see #getRuleSnapshot()
+     */
+    public Result generate(RuleSnapshot rules, Data data, long seed) throws SolveError {
+        final SolverPlan plan = rules.getPlan(data, getCardsToDraw());
+
+        // Reject rules that can't be satisfied before spending any time searching
+        if (plan.getRulesError() != null) {
+            throw plan.getRulesError();
+        }
+
+        if (isSampledUniformly(plan, null, Long.MAX_VALUE, null)) {
+            final Result result = generate(plan, null, parallelSearches, null, Long.MAX_VALUE, null, seed);
+            logStatistics();
+            return result;
+        }
+        final SearchPortfolio portfolio = rules.takePortfolio(plan);
+        try {
+            return generate(plan, portfolio, parallelSearches, null, Long.MAX_VALUE, null, seed);
+        } finally {
+            rules.returnPortfolio(portfolio);
+            logStatistics();
+        }
+    }
+
+    /**
+     * Generates a kingdom, giving up when it takes longer than the budget or the token is cancelled.<br/>
+     * Meant to run off the UI thread, with the UI showing the progress and a button to cancel.
+     * With equal chances, the budget and token also cover counting the kingdoms first, which can take a while with
+     * many rules; if there are too many rules to count them, the search gets what is left of the budget.
+     *
+     * @param budgetMillis the longest to search for, in milliseconds
+     * @param cancellation token to stop the search from another thread, may be null
+     * @param listener     listener for the progress of the search, called from the search threads, may be null.
+     *                     While counting kingdoms it's told the states worked out instead of the cards tried
+     * @throws SolveTimeout when the search ran out of time or was cancelled, with how far it got
+     * @throws SolveError   when the rules can't be satisfied
+     */
+    public Result generate(Data data, long budgetMillis, CancellationToken cancellation, SolveProgressListener listener) throws SolveError {
+        final long startTime = System.nanoTime();
+        final RuleSnapshot rules = ruleSnapshot;
+        final SolverPlan plan = rules.getPlan(data, getCardsToDraw());
+        if (plan.getRulesError() != null) {
+            throw plan.getRulesError();
+        }
+
+        final long seed = ThreadLocalRandom.current().nextLong();
+        final long deadline = startTime + budgetMillis * 1000000L;
+        if (isSampledUniformly(plan, cancellation, deadline, listener)) {
+            final Result result = generate(plan, null, parallelSearches, null, Long.MAX_VALUE, null, seed);
+            logStatistics();
+            return result;
+        }
+        final SearchPortfolio portfolio = rules.takePortfolio(plan);
+        try {
+            final Result result = generate(plan, portfolio, parallelSearches, cancellation, deadline, listener, seed);
+            if (result == null) {
+                throw new SolveTimeout(true, portfolio.getNodes(), System.nanoTime() - startTime);
+            }
+            return result;
+        } finally {
+            rules.returnPortfolio(portfolio);
+            logStatistics();
+        }
+    }
+
+    /**
+     * Generates the kingdom for the seed, every kingdom being made this way so it can be made again from its seed.<br/>
+     * All randomness comes from a SplitMix64 seeded with the seed: first the searches of the portfolio each get
+     * a generator split from it, then the cards that depend on the cards drawn are picked from it.
+     *
+     * @param portfolio the searches to use, null to pick the kingdom from the KingdomCounter instead
+     * @param threads   number of threads to run the searches on
+     * @param cancellation token to stop the searches, may be null
+     * @param deadline     System.nanoTime() to give up at, Long.MAX_VALUE to search for as long as it takes
+     * @param listener     listener for the progress of the searches, may be null
+     * @return the kingdom, or null if the searches were cancelled
+     * @throws SolveTimeout when the searches ran past the deadline
+     */
+    Result generate(SolverPlan plan, SearchPortfolio portfolio, int threads, CancellationToken cancellation, long deadline,
+                    SolveProgressListener listener, long seed) throws SolveError {
+        final long startTime = System.nanoTime();
+        final SolverStatistics statistics = this.statistics;
+        final SplitMix64 random = new SplitMix64(seed);
+        final Result result;
+        if (portfolio == null) {
+            result = sampleKingdom(plan, random);
+        } else {
+            portfolio.setStatistics(statistics);
+            final int status;
+            try {
+                status = portfolio.search(random, threads, threads > 1 ? getSearchExecutor() : null, cancellation, deadline, listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SolveError(SolveError.Reason.RULES_TOO_STRICT, "Interrupted while searching");
+            }
+            if (status == SolutionSearch.CANCELLED) {
+                return null;
+            }
+            if (status == SolutionSearch.TIMED_OUT) {
+                throw new SolveTimeout(false, portfolio.getNodes(), System.nanoTime() - startTime);
+            }
+            if (status != SolutionSearch.SOLVED) {
+                throw createSolveError(status);
+            }
+            result = portfolio.getResult();
+        }
+        if (statistics != null) {
+            statistics.addPhaseNanos(SolverStatistics.Phase.SEARCH, System.nanoTime() - startTime);
+        }
+        finishResult(result, plan, random, statistics);
+        result.setSeed(seed);
+        return result;
+    }
+
+    /**
+     * Generates a number of solutions for the same rules, e.g. for a whole evening of games.
+     *
+     * @return the solutions, in the order they were found
+     * @see #generateBatch(Data, int, long, ResultSink)
+     */
+    public List<Result> generateBatch(Data data, int count) throws SolveError {
+        final List<Result> results = new ArrayList<>(count);
+        generateBatch(data, count, results::add);
+        return results;
+    }
+
+    /**
+     * Generates a number of solutions for the same rules from a random seed.
+     *
+     * @see #generateBatch(Data, int, long, ResultSink)
+     */
+    public BatchStatistics generateBatch(Data data, int count, final ResultSink sink) throws SolveError {
+        return generateBatch(data, count, ThreadLocalRandom.current().nextLong(), sink);
+    }
+
+    /**
+     * Generates a number of solutions for the same rules, handing each one to the sink as soon as it's found.<br/>
+     * The rules are only worked out once for the whole batch, and the searches are reset and reused for the next
+     * solution rather than built again. With more than one parallel search set, the solutions are generated on
+     * that many threads at once; the sink is then called from those threads, but never from two at the same time.
+     * <p>
+     * Every solution gets its own seed, the next number of a SplitMix64 seeded with the seed of the batch, so the
+     * batch always has the same solutions, only the order they're handed to the sink in can differ between threads.
+     * Solutions are found independently, so the same set of cards can come up more than once.
+     *
+     * @return how long the batch took
+     * @throws SolveError when the rules can't be satisfied, no solutions are handed to the sink after that
+     */
+    public BatchStatistics generateBatch(Data data, int count, long seed, final ResultSink sink) throws SolveError {
+        final long startTime = System.nanoTime();
+        final SolverPlan plan = ruleSnapshot.getPlan(data, getCardsToDraw());
+        if (plan.getRulesError() != null) {
+            throw plan.getRulesError();
+        }
+        final long[] seeds = new long[count];
+        final SplitMix64 seedRandom = new SplitMix64(seed);
+        for (int i = 0; i < count; i++) {
+            seeds[i] = seedRandom.nextLong();
+        }
+        // Picking a kingdom from the counts is quick, so it's not worth spreading over threads
+        final boolean uniformSampling = isSampledUniformly(plan, null, Long.MAX_VALUE, null);
+        final int workers = uniformSampling ? 1 : Math.max(1, Math.min(parallelSearches, count));
+
+        final AtomicInteger nextResult = new AtomicInteger(0);
+        final CancellationToken cancellation = new CancellationToken();
+        final AtomicReference<SolveError> solveError = new AtomicReference<>();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(workers - 1);
+
+        final ExecutorService executor = workers > 1 ? getSearchExecutor() : null;
+        for (int i = 1; i < workers; i++) {
+            executor.execute(() -> {
+                try {
+                    runBatchSearches(plan, new SearchPortfolio(plan), seeds, nextResult, cancellation, solveError, sink);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    cancellation.cancel();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        try {
+            runBatchSearches(plan, uniformSampling ? null : new SearchPortfolio(plan), seeds, nextResult, cancellation, solveError, sink);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            cancellation.cancel();
+        }
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            cancellation.cancel();
+            Thread.currentThread().interrupt();
+            throw new SolveError(SolveError.Reason.RULES_TOO_STRICT, "Interrupted while searching");
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (solveError.get() != null) {
+            throw solveError.get();
+        }
+
+        final BatchStatistics statistics = new BatchStatistics(count, workers, System.nanoTime() - startTime);
+        log(statistics.toString());
+        logStatistics();
+        return statistics;
+    }
+
+    /**
+     * Keeps taking the next solution of the batch until all have been found, or the batch was cancelled.
+     */
+    private void runBatchSearches(SolverPlan plan, SearchPortfolio portfolio, long[] seeds, AtomicInteger nextResult,
+                                  CancellationToken cancellation, AtomicReference<SolveError> solveError, ResultSink sink) {
+        int index;
+        while (!cancellation.isCancelled() && (index = nextResult.getAndIncrement()) < seeds.length) {
+            final Result result;
+            try {
+                result = generate(plan, portfolio, 1, cancellation, Long.MAX_VALUE, null, seeds[index]);
+            } catch (SolveError e) {
+                // The searches went through every option, so the others won't find anything either
+                solveError.compareAndSet(null, e);
+                cancellation.cancel();
+                return;
+            }
+            if (result == null) {
+                return;
+            }
+            synchronized (sink) {
+                sink.accept(result);
+            }
+        }
+    }
+
+    /**
+     * Gets the kingdoms for the current rules one at a time, each one different from those before it.<br/>
+     * Kingdoms are only generated when asked for. Changing the rules afterwards doesn't affect the iterator.
+     *
+     * @param limit the most kingdoms to hand out, Long.MAX_VALUE to keep going for as long as new kingdoms are found
+     * @throws SolveError when the rules can be seen to have no solution before searching
+     * @see KingdomIterator
+     */
+    public KingdomIterator kingdomIterator(Data data, long limit) throws SolveError {
+        final SolverPlan plan = ruleSnapshot.getPlan(data, getCardsToDraw());
+        if (plan.getRulesError() != null) {
+            throw plan.getRulesError();
+        }
+        return new KingdomIterator(this, plan, isSampledUniformly(plan, null, Long.MAX_VALUE, null), new SplitMix64(ThreadLocalRandom.current().nextLong()), new LongHashSet(), new AtomicLong(limit));
+    }
+
+    /**
+     * Gets the kingdoms for the current rules as a Spliterator, e.g. for
+     * {@code StreamSupport.stream(selector.kingdomSpliterator(data, 100), true)}.
+     *
+     * @see #kingdomIterator(Data, long)
+     * @see KingdomSpliterator
+     */
+    public KingdomSpliterator kingdomSpliterator(Data data, long limit) throws SolveError {
+        return new KingdomSpliterator(kingdomIterator(data, limit), limit);
+    }
+
+    /**
+     * Counts the different kingdoms the current rules allow, without generating them.<br/>
+     * Only which cards are chosen counts, not which of the cards left over becomes the Bane card or the Ferryman extra pile.
+     * Cards not counting against the draw, like Events, are only counted in when a Limit with a minimum asks for them.
+     *
+     * @return the number of kingdoms, 0 if the rules can't be satisfied
+     * @throws SolveError when there are too many rules to count the kingdoms
+     * @see KingdomCounter
+     */
+    public BigInteger countKingdoms(Data data) throws SolveError {
+        final SolverPlan plan = ruleSnapshot.getPlan(data, getCardsToDraw());
+        if (plan.getRulesError() != null) {
+            return BigInteger.ZERO;
+        }
+        return getKingdomCounter(plan).count(null, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Counts the different kingdoms the current rules allow, giving up when it takes longer than the budget or the
+     * token is cancelled.<br/>
+     * Meant to run off the UI thread after every edit of the rules, cancelling the count for the rules before.
+     * The count is kept for as long as the rules stay the same, so asking again is quick.
+     *
+     * @param budgetMillis the longest to count for, in milliseconds
+     * @param cancellation token to stop counting from another thread, may be null
+     * @return the number of kingdoms, 0 if the rules can't be satisfied
+     * @throws SolveTimeout when counting ran out of time or was cancelled, it can be tried again later
+     * @throws SolveError   when there are too many rules to count the kingdoms
+     * @see #countKingdoms(Data)
+     */
+    public BigInteger countKingdoms(Data data, long budgetMillis, CancellationToken cancellation) throws SolveError {
+        final long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        final SolverPlan plan = ruleSnapshot.getPlan(data, getCardsToDraw());
+        if (plan.getRulesError() != null) {
+            return BigInteger.ZERO;
+        }
+        return getKingdomCounter(plan).count(cancellation, deadline, null);
+    }
+
+    /**
+     * Checks if kingdoms for the plan are to be picked by the KingdomCounter, counting the kingdoms first if needed.<br/>
+     * When there are too many rules to count the kingdoms, the searches are used instead, as without equal chances.
+     *
+     * @param cancellation token to stop counting, may be null
+     * @param deadline     System.nanoTime() to give up counting at, Long.MAX_VALUE for no deadline
+     * @param listener     listener for the progress of counting, may be null
+     * @throws SolveTimeout when counting ran past the deadline or was cancelled
+     */
+    private boolean isSampledUniformly(SolverPlan plan, CancellationToken cancellation, long deadline,
+                                       SolveProgressListener listener) throws SolveError {
+        if (!isUniformSampling()) {
+            return false;
+        }
+        try {
+            getKingdomCounter(plan).prepareSampling(cancellation, deadline, listener);
+            return true;
+        } catch (SolveError e) {
+            if (e.getReason() != SolveError.Reason.TOO_COMPLEX_TO_COUNT) {
+                throw e;
+            }
+            log(e.getMessage() + ", searching instead");
+            return false;
+        }
+    }
+
+    /**
+     * Picks a kingdom for the plan, every kingdom the rules allow having the same chance. Events and the like are only
+     * taken when a Limit with a minimum asks for them, see {@link KingdomCounter}.
+     */
+    private Result sampleKingdom(SolverPlan plan, Random random) throws SolveError {
+        final Result result = getKingdomCounter(plan).sample(random);
+        if (result == null) {
+            throw createSolveError(SolutionSearch.RULES_TOO_STRICT);
+        }
+        return result;
+    }
+
+    /**
+     * Turns the cards found by a search into the Result, adding the cards that depend on the cards drawn.
+     *
+     * @param statistics the statistics to time the steps in, null when they're not collected
+     */
+    private Result finishResult(Result result, SolverPlan plan, Random random, SolverStatistics statistics) {
+        // We have a valid solution in terms of draw cards
+        // Now check for and apply rules for specific cards
+        //addPotionIfNeeded(result);
+        long startTime = statistics != null ? System.nanoTime() : 0;
+        drawColonyPlatinum(result, plan, random);
+        drawShelter(result, plan, random);
+        startTime = countPhase(statistics, SolverStatistics.Phase.COLONY_SHELTER, startTime);
+        drawObelisk(result, plan, random);
+        startTime = countPhase(statistics, SolverStatistics.Phase.OBELISK, startTime);
+        drawTrait(result, plan, random);
+        startTime = countPhase(statistics, SolverStatistics.Phase.TRAITS, startTime);
+        drawAlly(result);
+        countPhase(statistics, SolverStatistics.Phase.ALLY, startTime);
+        if (statistics != null) {
+            statistics.addKingdom();
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the time since the start time to the phase, if statistics are collected.
+     *
+     * @return the time now, to start the next phase at
+     */
+    private static long countPhase(SolverStatistics statistics, SolverStatistics.Phase phase, long startTime) {
+        if (statistics == null) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        statistics.addPhaseNanos(phase, now - startTime);
+        return now;
+    }
+
+    /**
+     * Starts or stops collecting statistics of the work done generating kingdoms, starting from zero when enabled.<br/>
+     * While they're collected, they're written to the log after every kingdom or batch.
+     *
+     * @see #getStatistics()
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        statistics = enabled ? new SolverStatistics() : null;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statistics != null;
+    }
+
+    /**
+     * Gets the statistics collected since they were enabled, e.g. to show on a debug screen.
+     *
+     * @return a copy of the statistics, or null if they're not collected
+     */
+    public SolverStatistics getStatistics() {
+        final SolverStatistics statistics = this.statistics;
+        return statistics != null ? new SolverStatistics(statistics) : null;
+    }
+
+    /**
+     * Sets where the statistics are written to, or null to not write them.
+     */
+    public void setLogger(SolverLogger logger) {
+        this.logger = logger;
+    }
+
+    private void logStatistics() {
+        final SolverStatistics statistics = this.statistics;
+        if (statistics != null) {
+            log(statistics.toString());
+        }
+    }
+
+    private void log(String message) {
+        final SolverLogger logger = this.logger;
+        if (logger != null) {
+            logger.debug(CardSelector.class.getSimpleName(), message);
+        }
+    }
+
+    private static synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            searchExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                final Thread thread = new Thread(runnable, "CardSelector search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
+
+    /**
+     * Gets the counter for the plan, starting a new one if the plan changed since it was last used.<br/>
+     * Keeping it means the kingdoms are only counted once for as long as the rules stay the same.
+     */
+    private KingdomCounter getKingdomCounter(SolverPlan plan) {
+        KingdomCounter kingdomCounter = this.kingdomCounter;
+        if (kingdomCounter == null || kingdomCounter.getPlan() != plan) {
+            // Two threads starting a counter at once both count, after which either one is kept
+            kingdomCounter = new KingdomCounter(plan);
+            this.kingdomCounter = kingdomCounter;
+        }
+        return kingdomCounter;
+    }
+
+    /**
+     * Checks the current rules for problems that make it impossible to generate a solution.<br/>
+     * This is quick enough to run whenever the rules are changed, but it can't catch every impossible set of rules.
+     *
+     * @return the problem found, or null if no problem was found
+     */
+    public SolveError checkRules(Data data) {
+        return ruleSnapshot.getPlan(data, getCardsToDraw()).getRulesError();
+    }
+
+    /**
+     * Finds which of the current rules together make it impossible to generate a solution, to explain a SolveError.<br/>
+     * The conflict is minimal: leaving out any one of its rules, the rest can be satisfied. Only the limits, required
+     * cards and excluded groups and cards are considered, the included groups and cards are taken as they are.
+     *
+     * @param budgetMillis the longest to spend on it, in milliseconds, after which the conflict may hold more rules than needed
+     * @return the rules that conflict, empty if it's the included groups and cards alone, or null if the rules were not
+     * shown to conflict in time
+     * @see ConflictFinder
+     */
+    public List<ConflictingRule> findConflict(Data data, long budgetMillis) {
+        final long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        final RuleSnapshot snapshot = ruleSnapshot;
+
+        // The rules the finder tries leaving out first come first
+        final List<ConflictingRule> rules = new ArrayList<>();
+        for (Card card : snapshot.getExcludedCards()) {
+            rules.add(new ConflictingRule(ConflictingRule.Kind.EXCLUDED_CARD, card));
+        }
+        final List<Group> groups = new ArrayList<>(snapshot.getExcludedGroups());
+        Collections.sort(groups, GROUP_ORDER);
+        for (Group group : groups) {
+            rules.add(new ConflictingRule(ConflictingRule.Kind.EXCLUDED_GROUP, group));
+        }
+        for (Card card : snapshot.getRequiredCards()) {
+            rules.add(new ConflictingRule(ConflictingRule.Kind.REQUIRED_CARD, card));
+        }
+        for (Limit limit : snapshot.getLimits()) {
+            rules.add(new ConflictingRule(limit));
+        }
+
+        return new ConflictFinder(data, snapshot.getIncludedGroups(), snapshot.getIncludedCards(), rules, getCardsToDraw(), deadline).find();
+    }
+
+    /**
+     * The cards that can be picked with the given included and excluded groups and cards, not including the required cards.
+     */
+    static CardSet createAvailableCards(Collection<Group> includedGroups, Collection<Group> excludedGroups, CardSet includedCards,
+                                        CardSet excludedCards, CardSet requiredCards) {
+        final CardSet availableCards = new CardSet();
+
+        // Add all included groups
+        for (Group group : includedGroups) {
+            availableCards.addAll(group.getCardSet());
+        }
+
+        // Excluded groups take priority over included groups
+        for (Group group : excludedGroups) {
+            availableCards.removeAll(group.getCardSet());
+        }
+
+        // Specifically excluded Cards have higher priority over groups
+        availableCards.removeAll(excludedCards);
+
+        // Specifically included Cards are highest priority
+        availableCards.addAll(includedCards);
+
+        // Required Cards are already in the result, so they must not be drawn a second time
+        availableCards.removeAll(requiredCards);
+
+        return availableCards;
+    }
+
+    /**
+     * The given limits in the order used for picking cards.<br/>
+     * Besides the given limits this holds those implied by the Allies rules: at least one Ally card if we have a Liaison card,
+     * and a Liaison card if we have an Ally card.
+     */
+    static List<Limit> createSearchLimits(Data data, Collection<Limit> ownLimits) {
+        final List<Limit> limits = new ArrayList<>(ownLimits);
+
+        final Group alliesGroup = data.getGroup(Constants.GROUP_ALLIES);
+        final Group liaisonsGroup = data.getGroup(Constants.GROUP_LIAISONS);
+        final Limit alliesLimit = new Limit(alliesGroup);
+        alliesLimit.setMinimum(1);
+        alliesLimit.setCondition(liaisonsGroup);
+        limits.add(alliesLimit);
+        final Limit liaisonsLimit = new Limit(liaisonsGroup);
+        liaisonsLimit.setMinimum(1);
+        liaisonsLimit.setCondition(alliesGroup);
+        limits.add(liaisonsLimit);
+
+        // Stable sort, so our own limits stay ahead of the implied ones for the same group
+        Collections.sort(limits, (l1, l2) -> GROUP_ORDER.compare(l1.getGroup(), l2.getGroup()));
+        return limits;
+    }
+
+    private static SolveError createSolveError(int status) {
+        switch (status) {
+            case SolutionSearch.NO_BANE:
+                return new SolveError(SolveError.Reason.NOT_ENOUGH_CARDS, "Not enough cost 2 or 3 cards for selecting a bane card");
+            case SolutionSearch.NO_FERRYMAN_EXTRA:
+                return new SolveError(SolveError.Reason.NOT_ENOUGH_CARDS, "Not enough cost 3 or 4 cards for selecting an extra pile for Ferryman");
+            case SolutionSearch.NO_PROPHECY:
+                return new SolveError(SolveError.Reason.NO_PROPHECIES_FOUND, "No prophecies found to draw from");
+            case SolutionSearch.UNSATISFIED_RULE:
+                return new SolveError(SolveError.Reason.UNSATISFIED_RULE, "");
+            default:
+                return new SolveError(SolveError.Reason.RULES_TOO_STRICT, "Can not select cards using given rules, try relaxing them");
+        }
+    }
+
+    /**
+     * If either Colony or Platinum have been added, add the other (if not excluded).<br/>
+     * If they're not both excluded
+     * Checks the number of prosperity cards to the total drawn, and randomly draws the Colony and Platinum based on the ratio
+     */
+    private void drawColonyPlatinum(final Result result, final SolverPlan plan, final Random random) {
+        final Data data = plan.getData();
+        final Card colony = data.getCard(Constants.CARD_COLONY);
+        final Card platinum = data.getCard(Constants.CARD_PLATINUM);
+        final boolean colonyExcluded = plan.getExcludedCards().contains(colony);
+        final boolean platinumExcluded = plan.getExcludedCards().contains(platinum);
+
+        // If they have both been explicitly excluded, do nothing
+        if (colonyExcluded && platinumExcluded) {
+            return;
+        }
+
+        final boolean colonyAlreadyAdded = result.getCards().contains(colony);
+        final boolean platinumAlreadyAdded = result.getCards().contains(platinum);
+
+        if (colonyAlreadyAdded) {
+            if (platinumAlreadyAdded) {
+                // We already have both, do nothing
+                return;
+            }
+            if (!platinumExcluded) {
+                // If we have Colony, and Platinum isn't excluded, add it.
+                result.addCard(platinum);
+            }
+            return;
+        }
+        if (platinumAlreadyAdded) {
+            if (!colonyExcluded) {
+                // If we have Platinum, and Colony isn't excluded, add it.
+                result.addCard(colony);
+            }
+            return;
+        }
+
+        // We have neither Colony nor Platinum, do calculation to determine if we should add them
+
+        // Count the number of prosperity cards
+        Group prosperityFirstCards = data.getGroup(Constants.GROUP_PROSPERITY_FIRST);
+        Group prosperitySecondCards = data.getGroup(Constants.GROUP_PROSPERITY_FIRST);
+        int count = 0;
+        for (Card card : result.getCards()) {
+            if (prosperityFirstCards.contains(card) || prosperitySecondCards.contains(card)) {
+                count++;
+            }
+        }
+
+        // Randomly determine if prosperity cards should be added
+        if (random.nextInt(plan.getCardsToDraw()) < count) {
+            // Add the Colony and Platinum, where they're not excluded.
+            if (!colonyExcluded) {
+                result.addCard(colony);
+            }
+            if (!platinumExcluded) {
+                result.addCard(platinum);
+            }
+        }
+    }
+
+    /**
+     * Shelter is actually a type of Basic cards, but we treat and display it as a single card for convenience.
+     */
+    private void drawShelter(Result result, SolverPlan plan, Random random) {
+        final Data data = plan.getData();
+        final Card shelter = data.getCard(Constants.CARD_SHELTER);
+
+        // Check if it was already a required card
+        if (result.getCards().contains(shelter)) {
+            return;
+        }
+
+        // Count the number of dark ages cards
+        Group darkAgesCards = data.getGroup(Constants.GROUP_DARK_AGES);
+        int count = 0;
+        for (Card card : result.getCards()) {
+            if (darkAgesCards.contains(card)) {
+                count++;
+            }
+        }
+
+        // Randomly determine if shelter cards should be added
+        if (random.nextInt(plan.getCardsToDraw()) < count) {
+            result.addCard(shelter);
+        }
+    }
+
+    /**
+     * Check if we need to identify a card for the Obelisk Landmark
+     */
+    private void drawObelisk(Result result, SolverPlan plan, Random random) {
+        final Card obelisk = plan.getData().getCard(Constants.CARD_OBELISK);
+
+        // If we don't have obelisk, just return
+        if (!result.getCards().contains(obelisk)) {
+            return;
+        }
+
+        // Create a list of only action cards from the result
+        List<Card> actionCards = new ArrayList<>();
+        for (Card card : result.getCards()) {
+            if (card.hasType(CardTypes.ACTION)) {
+                actionCards.add(card);
+            }
+        }
+
+        if (actionCards.isEmpty()) {
+            // Wierd, but technically possible - means they will have the obelisk card in play, but it has no effect on the game (under rules at the time of this).
+            return;
+        }
+
+        final int cardToFetch = random.nextInt(actionCards.size());
+        result.setObeliskCard(actionCards.get(cardToFetch));
+    }
+
+    /**
+     * Check if we need to identify a card for a Trait to apply to
+     */
+    private void drawTrait(Result result, SolverPlan plan, Random random) {
+        // If we have no traits, just return
+        int numTraits = 0;
+        for (Card card: result.getCards())
+        {
+            if(card.hasType(CardTypes.TRAIT))
+            {
+                numTraits += 1;
+            }
+        }
+        
+        if (numTraits == 0) {
+            return;
+        }
+
+        // Create a pool of only action and treasure cards from the result
+        IndexedCardPool actionTreasureCards = new IndexedCardPool(plan.getData().getCardCount());
+        for (Card card : result.getCards()) {
+            if (card.hasType(CardTypes.ACTION | CardTypes.TREASURE)) {
+                actionTreasureCards.add(card);
+            }
+        }
+
+        if (actionTreasureCards.isEmpty()) {
+            // Wierd, but technically possible - means they will have the trait card in play, but it has no effect on the game (under rules at the time of this).
+            return;
+        }
+        if (actionTreasureCards.size() < numTraits)
+        {
+            // If not enough cards to apply traits to, just select as many as possible and the rest will have no effect
+            numTraits = actionTreasureCards.size();
+        }
+        List<Card> traitCards = new ArrayList<>();
+        for (int i=0; i<numTraits; i++)
+        {
+            Card traitCard = actionTreasureCards.pickRandom(random);
+            traitCards.add(traitCard);
+            actionTreasureCards.remove(traitCard);
+        }
+        result.setTraitCards(traitCards);
+    }
+
+    private void drawAlly(Result result) {
+        //@TODO
+    }
+
+    private boolean isUniformSampling() {
+        return settings.isUniformSampling();
+    }
+
+    private int getCardsToDraw() {
+        return settings.getCardsToDraw();
+    }
+
+    public void addIncludedGroup(Group group) {
+        includedGroups.add(group);
+        rulesChanged();
+    }
+
+    public void removeIncludedGroup(Group group) {
+        includedGroups.remove(group);
+        rulesChanged();
+    }
+
+    public boolean hasIncludedGroup(Group group) {
+        return includedGroups.contains(group);
+    }
+
+    public void addExcludedGroup(Group group) {
+        excludedGroups.add(group);
+        rulesChanged();
+    }
+
+    public void removeExcludedGroup(Group group) {
+        excludedGroups.remove(group);
+        rulesChanged();
+    }
+
+    public boolean hasExcludedGroup(Group group) {
+        return excludedGroups.contains(group);
+    }
+
+    public void addIncludedCard(Card card) {
+        includedCards.add(card);
+        rulesChanged();
+    }
+
+    public void removeIncludedCard(Card card) {
+        includedCards.remove(card);
+        rulesChanged();
+    }
+
+    public boolean hasIncludedCard(Card card) {
+        return includedCards.contains(card);
+    }
+
+    public void addExcludedCard(Card card) {
+        excludedCards.add(card);
+        rulesChanged();
+    }
+
+    public void removeExcludedCard(Card cards) {
+        excludedCards.remove(cards);
+        rulesChanged();
+    }
+
+    public boolean hasExlcudedCard(Card card) {
+        return excludedCards.contains(card);
+    }
+
+    public void addRequiredCard(Card card) {
+        requiredCards.add(card);
+        rulesChanged();
+    }
+
+    public void removeRequiredCard(Card card) {
+        requiredCards.remove(card);
+        rulesChanged();
+    }
+
+    public boolean hasRequiredCard(Card card) {
+        return requiredCards.contains(card);
+    }
+
+    public void removeLimit(Group group) {
+        allLimits.remove(group);
+        rulesChanged();
+    }
+
+    /**
+     * Gets the limit for the group, to read.<br/>
+     * The limit returned is a copy: changing it changes neither the rules nor the published RuleSnapshot, and later
+     * changes to the rules don't show in it. Change the limit with {@link #setLimitMinimum(Group, int)},
+     * {@link #setLimitMaximum(Group, int)}, {@link #setCondition(Group, GroupOrCard)} and {@link #removeLimit(Group)}.
+     *
+     * @return a copy of the limit for the group, or null if it has none
+     */
+    public Limit getLimit(Group group) {
+        final Limit limit = allLimits.get(group);
+        return limit == null ? null : new Limit(limit);
+    }
+
+    /**
+     * The limit for the group to edit, without publishing it; callers call rulesChanged() when done.
+     */
+    private Limit getOrCreateLimit(Group group) {
+        Limit limit = allLimits.get(group);
+        if (limit == null) {
+            limit = new Limit(group);
+            allLimits.put(group, limit);
+        }
+        return limit;
+    }
+
+    public boolean hasLimit(Group group) {
+        return allLimits.containsKey(group);
+    }
+
+    public void clear() {
+        includedGroups.clear();
+        excludedGroups.clear();
+        includedCards.clear();
+        excludedCards.clear();
+        requiredCards.clear();
+        allLimits.clear();
+        rulesChanged();
+    }
+
+    public void cycleIncludeExclude(Object cardOrGroup) {
+        if (cardOrGroup instanceof Card) {
+            cycleIncludeExclude((Card) cardOrGroup);
+        } else if (cardOrGroup instanceof Group) {
+            cycleIncludeExclude((Group) cardOrGroup);
+        }
+    }
+
+    private void cycleIncludeExclude(Card card) {
+        if (includedCards.remove(card)) {
+            excludedCards.add(card);
+        } else if (!excludedCards.remove(card)) {
+            includedCards.add(card);
+        }
+        rulesChanged();
+    }
+
+    private void cycleIncludeExclude(Group group) {
+        if (includedGroups.remove(group)) {
+            excludedGroups.add(group);
+        } else if (!excludedGroups.remove(group)) {
+            includedGroups.add(group);
+        }
+        rulesChanged();
+    }
+
+    public void cycleRequireExclude(Card card) {
+        if (requiredCards.remove(card)) {
+            excludedCards.remove(card);
+        } else if (excludedCards.remove(card)) {
+            requiredCards.add(card);
+        } else {
+            excludedCards.add(card);
+        }
+        rulesChanged();
+    }
+
+    public int getLimitMinimum(Group group) {
+        if (hasLimit(group)) {
+            return allLimits.get(group).getMinimum();
+        } else {
+            return 0;
+        }
+    }
+
+    // Will map MAX_VALUE back to 0
+    public int getLimitMaximum(Group group) {
+        if (hasLimit(group)) {
+            Limit limit = allLimits.get(group);
+            if (limit.getMaximum() == Integer.MAX_VALUE) {
+                return 0;
+            } else {
+                return limit.getMaximum();
+            }
+        } else {
+            return 0;
+        }
+    }
+
+    public GroupOrCard getCondition(Group group) {
+        if (hasLimit(group)) {
+            Limit limit = allLimits.get(group);
+            return limit.getCondition();
+        } else {
+            return null;
+        }
+    }
+
+    public void setLimitMinimum(Group group, int which) {
+        if (which == 0 && !hasLimit(group)) {
+            return;
+        }
+        Limit limit = getOrCreateLimit(group);
+        limit.setMinimum(which);
+        dropLimitIfUseless(group);
+        rulesChanged();
+    }
+
+    // Will map the value 0 to MAX_VALUE
+    public void setLimitMaximum(Group group, int which) {
+        if (which == 0 && !hasLimit(group)) {
+            return;
+        }
+        if (which == 0) {
+            which = Integer.MAX_VALUE;
+        }
+        Limit limit = getOrCreateLimit(group);
+        limit.setMaximum(which);
+        dropLimitIfUseless(group);
+        rulesChanged();
+    }
+
+    public void removeLimitIfUseless(Group group) {
+        if (dropLimitIfUseless(group)) {
+            rulesChanged();
+        }
+    }
+
+    /**
+     * @return whether the limit was dropped, without publishing it
+     */
+    private boolean dropLimitIfUseless(Group group) {
+        Limit limit = allLimits.get(group);
+        if (limit != null && limit.getMinimum() == 0 && limit.getMaximum() == Integer.MAX_VALUE
+                && limit.getCondition() == null) {
+            allLimits.remove(group);
+            return true;
+        }
+        return false;
+    }
+
+    public void setCondition(Group group, GroupOrCard groupOrCard) {
+        if (groupOrCard == null || groupOrCard instanceof Nothing && !hasLimit(group)) {
+            return;
+        }
+        Limit limit = getOrCreateLimit(group);
+        if (groupOrCard instanceof Nothing) {
+            limit.setCondition(null);
+        } else {
+            limit.setCondition(groupOrCard);
+        }
+        dropLimitIfUseless(group);
+        rulesChanged();
+    }
+
+    public void fromJson(String json, Data data) throws JSONException {
+        JSONObject root = new JSONObject(json);
+        JSONArray array;
+
+        includedCards.clear();
+        array = root.getJSONArray("includedCards");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                Card card = data.getCard(array.getString(i));
+                if (card != null) {
+                    includedCards.add(card);
+                }
+            }
+        }
+
+        excludedCards.clear();
+        array = root.getJSONArray("excludedCards");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                Card card = data.getCard(array.getString(i));
+                if (card != null) {
+                    excludedCards.add(card);
+                }
+            }
+        }
+
+        requiredCards.clear();
+        array = root.getJSONArray("requiredCards");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                Card card = data.getCard(array.getString(i));
+                if (card != null) {
+                    requiredCards.add(card);
+                }
+            }
+        }
+
+        includedGroups.clear();
+        array = root.getJSONArray("includedGroups");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                Group group = data.getGroup(array.getString(i));
+                if (group != null) {
+                    includedGroups.add(group);
+                }
+            }
+        }
+
+        excludedGroups.clear();
+        array = root.getJSONArray("excludedGroups");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                Group group = data.getGroup(array.getString(i));
+                if (group != null) {
+                    excludedGroups.add(group);
+                }
+            }
+        }
+
+        allLimits.clear();
+        array = root.getJSONArray("rules");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject jsonLimit = array.getJSONObject(i);
+                if (jsonLimit == null) {
+                    continue;
+                }
+                Group group = data.getGroup(jsonLimit.getString("group"));
+                if (group == null) {
+                    continue;
+                }
+                Limit limit = new Limit(group);
+                if (jsonLimit.has("min")) {
+                    limit.setMinimum(jsonLimit.getInt("min"));
+                }
+                if (jsonLimit.has("max")) {
+                    limit.setMaximum(jsonLimit.getInt("max"));
+                }
+                if (jsonLimit.has("condition")) {
+                    limit.setCondition(data.getGroupOrCard(jsonLimit.getString("condition")));
+                }
+                allLimits.put(group, limit);
+            }
+        }
+        rulesChanged();
+    }
+
+    public String toJson() throws JSONException {
+        return ruleSnapshot.toJson();
+    }
+
+    public void removeExcludedCard(Collection<Card> cards) {
+        excludedCards.removeAll(cards);
+        rulesChanged();
+    }
+
+    public void removeRequiredCard(Collection<Card> cards) {
+        requiredCards.removeAll(cards);
+        rulesChanged();
+    }
+
+    public void addExcludedCard(Collection<Card> cards) {
+        excludedCards.addAll(cards);
+        rulesChanged();
+    }
+
+    public void addRequiredCard(Collection<Card> cards) {
+        requiredCards.addAll(cards);
+        rulesChanged();
+    }
+
+    /**
+     * Publishes the edited rules as a new RuleSnapshot. Generates already running keep the snapshot they started with.
+     */
+    private void rulesChanged() {
+        ruleSnapshot = new RuleSnapshot(includedGroups, excludedGroups, includedCards, excludedCards, requiredCards, allLimits.values());
+    }
+
+    /**
+     * The rules as of the last edit, which stay the same while the rules of this CardSelector are edited further.
+     */
+    public RuleSnapshot getRuleSnapshot() {
+        return ruleSnapshot;
+    }
+
+    public int getParallelSearches() {
+        return parallelSearches;
+    }
+
+    /**
+     * Sets how many threads generate runs the searches of its SearchPortfolio on. With more than one, a set of rules
+     * where some random orders take much longer than others is solved in about the time of the fastest order.
+     * The kingdom generated for a seed is the same for any number of threads.
+     */
+    public void setParallelSearches(int parallelSearches) {
+        this.parallelSearches = Math.max(1, parallelSearches);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+}
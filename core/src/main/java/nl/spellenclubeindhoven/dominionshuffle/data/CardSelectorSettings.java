@@ -0,0 +1,19 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * The settings a CardSelector generates kingdoms with, read again for every generate so changes take effect
+ * right away. The app reads them from its preferences.
+ */
+public interface CardSelectorSettings {
+    /**
+     * @return the number of kingdom cards to draw
+     */
+    int getCardsToDraw();
+
+    /**
+     * Checks if kingdoms should be picked with every kingdom having the same chance, rather than by searching.<br/>
+     * Those kingdoms only have cards not counting against the draw, like Events, when a Limit asks for a minimum of
+     * them, where searching can also pick them along with the other cards.
+     */
+    boolean isUniformSampling();
+}
@@ -0,0 +1,279 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of Cards backed by a bitset over the Card ids assigned in {@link Data#read(String)}.<br/>
+ * Unions, intersections and counts between two CardSets are done a word (64 cards) at a time,
+ * which is what the CardSelector relies on when checking its Limits.
+ * <p>
+ * Card ids are only unique within a single Data instance, so CardSets of Cards from different Data should never be mixed.
+ */
+public class CardSet extends AbstractSet<Card> {
+    private static final long[] NO_WORDS = new long[0];
+    private static final Card[] NO_CARDS = new Card[0];
+
+    private long[] words;
+    /**
+     * Lookup from id to Card, needed to turn the bits back into Cards when iterating.<br/>
+     * Entries are only ever written with the Card owning that id, so the table can be safely shared between copies.
+     */
+    private Card[] cards;
+
+    public CardSet() {
+        this.words = NO_WORDS;
+        this.cards = NO_CARDS;
+    }
+
+    /**
+     * Creates an empty set that uses the given table of all Cards (indexed by id) for its lookups.
+     */
+    public CardSet(Card[] universe) {
+        this.words = new long[wordIndex(universe.length - 1) + 1];
+        this.cards = universe;
+    }
+
+    public CardSet(CardSet original) {
+        this.words = original.words.clone();
+        this.cards = original.cards;
+    }
+
+    public CardSet(Collection<Card> original) {
+        this();
+        addAll(original);
+    }
+
+    private static int wordIndex(int id) {
+        return id >> 6;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= cards.length) {
+            Card[] newCards = new Card[Math.max(id + 1, cards.length * 2)];
+            System.arraycopy(cards, 0, newCards, 0, cards.length);
+            cards = newCards;
+        }
+        final int wordIndex = wordIndex(id);
+        if (wordIndex >= words.length) {
+            long[] newWords = new long[Math.max(wordIndex + 1, words.length * 2)];
+            System.arraycopy(words, 0, newWords, 0, words.length);
+            words = newWords;
+        }
+    }
+
+    @Override
+    public boolean add(Card card) {
+        final int id = card.getId();
+        ensureCapacity(id);
+        if (cards[id] != card) {
+            cards[id] = card;
+        }
+        final int wordIndex = wordIndex(id);
+        final long before = words[wordIndex];
+        words[wordIndex] = before | (1L << id);
+        return before != words[wordIndex];
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        if (!(object instanceof Card)) {
+            return false;
+        }
+        final int id = ((Card) object).getId();
+        final int wordIndex = wordIndex(id);
+        if (wordIndex >= words.length) {
+            return false;
+        }
+        final long before = words[wordIndex];
+        words[wordIndex] = before & ~(1L << id);
+        return before != words[wordIndex];
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Card)) {
+            return false;
+        }
+        final int id = ((Card) object).getId();
+        final int wordIndex = wordIndex(id);
+        return wordIndex < words.length && (words[wordIndex] & (1L << id)) != 0;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = 0;
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Card> collection) {
+        if (!(collection instanceof CardSet)) {
+            return super.addAll(collection);
+        }
+        final CardSet other = (CardSet) collection;
+        if (other.cards != cards) {
+            // Make sure our lookup table knows about every Card we're about to take over
+            for (Card card : other) {
+                ensureCapacity(card.getId());
+                cards[card.getId()] = card;
+            }
+        }
+        if (other.words.length > words.length) {
+            // The other set may have grown past its highest Card, so also make room for its trailing empty words
+            long[] newWords = new long[other.words.length];
+            System.arraycopy(words, 0, newWords, 0, words.length);
+            words = newWords;
+        }
+        boolean changed = false;
+        for (int i = 0; i < other.words.length; i++) {
+            final long before = words[i];
+            words[i] = before | other.words[i];
+            changed |= before != words[i];
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        if (!(collection instanceof CardSet)) {
+            boolean changed = false;
+            for (Object object : collection) {
+                changed |= remove(object);
+            }
+            return changed;
+        }
+        final CardSet other = (CardSet) collection;
+        final int length = Math.min(words.length, other.words.length);
+        boolean changed = false;
+        for (int i = 0; i < length; i++) {
+            final long before = words[i];
+            words[i] = before & ~other.words[i];
+            changed |= before != words[i];
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        if (!(collection instanceof CardSet)) {
+            return super.retainAll(collection);
+        }
+        final CardSet other = (CardSet) collection;
+        boolean changed = false;
+        for (int i = 0; i < words.length; i++) {
+            final long before = words[i];
+            words[i] = i < other.words.length ? before & other.words[i] : 0;
+            changed |= before != words[i];
+        }
+        return changed;
+    }
+
+    /**
+     * Counts the Cards in both this and the other set, without creating the intersection.
+     */
+    public int intersectionSize(CardSet other) {
+        final int length = Math.min(words.length, other.words.length);
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            size += Long.bitCount(words[i] & other.words[i]);
+        }
+        return size;
+    }
+
+    /**
+     * Checks if there is at least one Card in both this and the other set.
+     */
+    public boolean intersects(CardSet other) {
+        final int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the Card at the given position, counting in id order.<br/>
+     * Used to pick a random Card from the set without walking an iterator.
+     */
+    public Card get(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int remaining = index;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            final int bits = Long.bitCount(word);
+            if (remaining >= bits) {
+                remaining -= bits;
+                continue;
+            }
+            // The Card is in this word, drop the lower bits until we reach it
+            for (int j = 0; j < remaining; j++) {
+                word &= word - 1;
+            }
+            return cards[(i << 6) + Long.numberOfTrailingZeros(word)];
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            private int wordIndex = 0;
+            private long remainingWord = words.length > 0 ? words[0] : 0;
+            private int lastId = -1;
+
+            @Override
+            public boolean hasNext() {
+                while (remainingWord == 0 && wordIndex + 1 < words.length) {
+                    remainingWord = words[++wordIndex];
+                }
+                return remainingWord != 0;
+            }
+
+            @Override
+            public Card next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                lastId = (wordIndex << 6) + Long.numberOfTrailingZeros(remainingWord);
+                remainingWord &= remainingWord - 1;
+                return cards[lastId];
+            }
+
+            @Override
+            public void remove() {
+                if (lastId < 0) {
+                    throw new IllegalStateException();
+                }
+                words[wordIndex(lastId)] &= ~(1L << lastId);
+                lastId = -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * Registry of card types, giving every type a bit so the types of a Card can be checked with a single AND.<br/>
+ * The types the CardSelector checks have fixed bits, any other type gets the next free bit when a Card with it is
+ * read by {@link Data#read(String)}. A type coming after all 64 bits are taken gets no bit, it can then only be
+ * found through {@link Card#getTypes()}.
+ */
+public final class CardTypes {
+    public static final long ACTION = 1L;
+    public static final long TREASURE = 1L << 1;
+    public static final long ALLY = 1L << 2;
+    public static final long EVENT = 1L << 3;
+    public static final long LANDMARK = 1L << 4;
+    public static final long LIAISON = 1L << 5;
+    public static final long OMEN = 1L << 6;
+    public static final long PROJECT = 1L << 7;
+    public static final long WAY = 1L << 8;
+    public static final long TRAIT = 1L << 9;
+    /**
+     * Types of cards that are set out next to the kingdom, so they don't count against the cards drawn
+     */
+    public static final long NOT_DRAWN = EVENT | LANDMARK | PROJECT | WAY | ALLY | TRAIT;
+
+    private static final Map<String, Long> bits = new HashMap<>();
+    private static int nextBit;
+
+    static {
+        bits.put(Constants.TYPE_ACTION, ACTION);
+        bits.put(Constants.TYPE_TREASURE, TREASURE);
+        bits.put(Constants.TYPE_ALLY, ALLY);
+        bits.put(Constants.TYPE_EVENT, EVENT);
+        bits.put(Constants.TYPE_LANDMARK, LANDMARK);
+        bits.put(Constants.TYPE_LIAISON, LIAISON);
+        bits.put(Constants.TYPE_OMEN, OMEN);
+        bits.put(Constants.TYPE_PROJECT, PROJECT);
+        bits.put(Constants.TYPE_WAY, WAY);
+        bits.put(Constants.TYPE_TRAIT, TRAIT);
+        nextBit = bits.size();
+    }
+
+    private CardTypes() {
+    }
+
+    /**
+     * Gets the bit of the type, giving it the next free bit if it doesn't have one yet.
+     *
+     * @return the bit, or 0 if all bits are taken
+     */
+    public static synchronized long getBit(String type) {
+        Long bit = bits.get(type);
+        if (bit == null) {
+            bit = nextBit < Long.SIZE ? 1L << nextBit++ : 0L;
+            bits.put(type, bit);
+        }
+        return bit;
+    }
+
+    /**
+     * Gets the bits of all the types combined.
+     */
+    public static long getMask(Collection<String> types) {
+        long mask = 0;
+        for (String type : types) {
+            mask |= getBit(type);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,143 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds a minimal set of rules that can't be satisfied together, to tell the user which rules to relax.<br/>
+ * Starting from all rules, each rule in turn is left out, and stays out if the rules left still can't be satisfied.
+ * The rules that are left in the end each make the difference, so the conflict is minimal. A kind of rule with more
+ * than one rule (e.g. the excluded cards) is first left out as a whole, which mostly saves checking them one by one.
+ * <p>
+ * Every check first runs the RuleAnalyzer on the rules still in, which rejects most conflicts without working out
+ * a SolverPlan. Only if it can't, a search decides, which either finds a solution or went through every option.
+ * A search that runs out of time counts as a solution, keeping the rule in: the conflict then still can't be
+ * satisfied, but may hold more rules than needed.
+ */
+class ConflictFinder {
+    final private Data data;
+    final private Collection<Group> includedGroups;
+    final private CardSet includedCards;
+    /**
+     * The rules to find the conflict in, in the order they are tried to be left out
+     */
+    final private List<ConflictingRule> rules;
+    final private int cardsToDraw;
+    /**
+     * System.nanoTime() to stop searching at
+     */
+    final private long deadline;
+
+    ConflictFinder(Data data, Collection<Group> includedGroups, CardSet includedCards, List<ConflictingRule> rules,
+                   int cardsToDraw, long deadline) {
+        this.data = data;
+        this.includedGroups = includedGroups;
+        this.includedCards = includedCards;
+        this.rules = rules;
+        this.cardsToDraw = cardsToDraw;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return the rules that conflict, empty if the included groups and cards alone can't be satisfied, or null if
+     * all rules together could not be shown to conflict
+     */
+    List<ConflictingRule> find() {
+        final boolean[] inUse = new boolean[rules.size()];
+        for (int i = 0; i < inUse.length; i++) {
+            inUse[i] = true;
+        }
+        if (!isUnsatisfiable(inUse)) {
+            return null;
+        }
+
+        // Leave out all rules of a kind at once, rules of the same kind rarely conflict between themselves
+        for (ConflictingRule.Kind kind : ConflictingRule.Kind.values()) {
+            int count = 0;
+            for (int i = 0; i < inUse.length; i++) {
+                if (rules.get(i).getKind() == kind) {
+                    inUse[i] = false;
+                    count++;
+                }
+            }
+            if (count > 1 && isUnsatisfiable(inUse)) {
+                continue;
+            }
+            for (int i = 0; i < inUse.length; i++) {
+                if (rules.get(i).getKind() == kind) {
+                    inUse[i] = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < inUse.length; i++) {
+            if (inUse[i]) {
+                inUse[i] = false;
+                if (!isUnsatisfiable(inUse)) {
+                    inUse[i] = true;
+                }
+            }
+        }
+
+        final List<ConflictingRule> conflict = new ArrayList<>();
+        for (int i = 0; i < inUse.length; i++) {
+            if (inUse[i]) {
+                conflict.add(rules.get(i));
+            }
+        }
+        return conflict;
+    }
+
+    /**
+     * Checks if the rules in use are shown to have no solution.
+     */
+    private boolean isUnsatisfiable(boolean[] inUse) {
+        final List<Limit> limits = new ArrayList<>();
+        final List<Group> excludedGroups = new ArrayList<>();
+        final CardSet excludedCards = new CardSet();
+        final CardSet requiredCards = new CardSet();
+        for (int i = 0; i < inUse.length; i++) {
+            if (!inUse[i]) {
+                continue;
+            }
+            final ConflictingRule rule = rules.get(i);
+            switch (rule.getKind()) {
+                case LIMIT:
+                    limits.add(rule.getLimit());
+                    break;
+                case REQUIRED_CARD:
+                    requiredCards.add((Card) rule.getGroupOrCard());
+                    break;
+                case EXCLUDED_GROUP:
+                    excludedGroups.add((Group) rule.getGroupOrCard());
+                    break;
+                case EXCLUDED_CARD:
+                    excludedCards.add((Card) rule.getGroupOrCard());
+                    break;
+            }
+        }
+
+        // Most conflicts are found by the RuleAnalyzer alone, which needs nothing worked out besides the cards
+        final CardSet availableCards = CardSelector.createAvailableCards(includedGroups, excludedGroups, includedCards, excludedCards, requiredCards);
+        final List<Limit> searchLimits = CardSelector.createSearchLimits(data, limits);
+        if (new RuleAnalyzer(availableCards, requiredCards, searchLimits, cardsToDraw).analyze() != null) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        if (now - deadline > 0) {
+            return false;
+        }
+
+        final SolverPlan plan = new SolverPlan(data, availableCards, requiredCards, excludedCards, searchLimits, cardsToDraw);
+        final int status;
+        try {
+            // A search may take half the time left at most, so one slow search leaves time for the other rules
+            status = new SearchPortfolio(plan).search(new SplitMix64(0), 1, null, null, now + (deadline - now) / 2, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return status != SolutionSearch.SOLVED && status != SolutionSearch.TIMED_OUT && status != SolutionSearch.CANCELLED;
+    }
+}
@@ -0,0 +1,71 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * One of the rules of a CardSelector, as part of a conflict found by {@link CardSelector#findConflict(Data, long)}.
+ */
+public class ConflictingRule {
+    public enum Kind {
+        LIMIT,
+        REQUIRED_CARD,
+        EXCLUDED_GROUP,
+        EXCLUDED_CARD
+    }
+
+    final private Kind kind;
+    final private GroupOrCard groupOrCard;
+    final private Limit limit;
+
+    ConflictingRule(Kind kind, GroupOrCard groupOrCard) {
+        this.kind = kind;
+        this.groupOrCard = groupOrCard;
+        this.limit = null;
+    }
+
+    ConflictingRule(Limit limit) {
+        this.kind = Kind.LIMIT;
+        this.groupOrCard = limit.getGroup();
+        this.limit = new Limit(limit);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the card that is required or excluded, or the group that is excluded or has the limit.
+     */
+    public GroupOrCard getGroupOrCard() {
+        return groupOrCard;
+    }
+
+    /**
+     * @return a copy of the limit, or null if the rule isn't a limit
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        final String name = groupOrCard.getName();
+        switch (kind) {
+            case REQUIRED_CARD:
+                return name + " required";
+            case EXCLUDED_GROUP:
+            case EXCLUDED_CARD:
+                return name + " excluded";
+            default:
+                final StringBuilder text = new StringBuilder(name);
+                if (limit.getMinimum() > 0) {
+                    text.append(" min ").append(limit.getMinimum());
+                }
+                if (limit.getMaximum() != Integer.MAX_VALUE) {
+                    text.append(" max ").append(limit.getMaximum());
+                }
+                if (limit.hasCondition()) {
+                    text.append(" if ").append(limit.getCondition().getName());
+                }
+                return text.toString();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Cost of a Card, parsed once from the text in the data (e.g. "4", "P3", "4D3", "D8", "5*" or "2+") and packed
+ * into a single int.<br/>
+ * Costs are ordered by coins, then debt, then potions, then modifiers, so "10" comes after "9" rather than
+ * before "2" as it would when comparing the text.
+ */
+public final class Cost implements Comparable<Cost> {
+    // Packed from the lowest bits up: modifier flags, potions, debt, coins, so comparing the ints gives the order
+    private static final int STAR = 1;
+    private static final int PLUS = 1 << 1;
+    private static final int HAS_COINS = 1 << 2;
+    private static final int POTIONS_SHIFT = 3;
+    private static final int DEBT_SHIFT = 7;
+    private static final int COINS_SHIFT = 15;
+    private static final int POTIONS_MASK = 0xF;
+    private static final int AMOUNT_MASK = 0xFF;
+
+    final private int value;
+
+    private Cost(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Parses the cost text: "P" for each potion, the coins, "D" followed by the debt, and "*" or "+" as modifiers.
+     */
+    public static Cost parse(String text) {
+        int coins = 0;
+        int potions = 0;
+        int debt = 0;
+        int flags = 0;
+        boolean readingDebt = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (readingDebt) {
+                    debt = debt * 10 + (c - '0');
+                } else {
+                    coins = coins * 10 + (c - '0');
+                    flags |= HAS_COINS;
+                }
+            } else if (c == 'P') {
+                potions++;
+            } else if (c == 'D') {
+                readingDebt = true;
+            } else if (c == '*') {
+                flags |= STAR;
+            } else if (c == '+') {
+                flags |= PLUS;
+            } else {
+                throw new IllegalArgumentException("Can not parse cost '" + text + "'");
+            }
+        }
+        if (coins > AMOUNT_MASK || debt > AMOUNT_MASK || potions > POTIONS_MASK) {
+            throw new IllegalArgumentException("Cost '" + text + "' is too high");
+        }
+        return new Cost(coins << COINS_SHIFT | debt << DEBT_SHIFT | potions << POTIONS_SHIFT | flags);
+    }
+
+    public int getCoins() {
+        return value >>> COINS_SHIFT & AMOUNT_MASK;
+    }
+
+    public int getDebt() {
+        return value >>> DEBT_SHIFT & AMOUNT_MASK;
+    }
+
+    public int getPotions() {
+        return value >>> POTIONS_SHIFT & POTIONS_MASK;
+    }
+
+    /**
+     * Checks if the cost has a coin amount, e.g. not for "D8" which only costs debt.
+     */
+    public boolean hasCoins() {
+        return (value & HAS_COINS) != 0;
+    }
+
+    /**
+     * Checks for the "*" modifier, the card costs something special on top or instead.
+     */
+    public boolean isStar() {
+        return (value & STAR) != 0;
+    }
+
+    /**
+     * Checks for the "+" modifier, the card can be overpaid for.
+     */
+    public boolean isPlus() {
+        return (value & PLUS) != 0;
+    }
+
+    /**
+     * Checks if the cost is coins alone, without potions or debt.
+     */
+    public boolean isCoinsOnly() {
+        return hasCoins() && getPotions() == 0 && getDebt() == 0;
+    }
+
+    /**
+     * Gets the coins with their modifiers, as shown next to the coin or potion icon.
+     *
+     * @return the text, or null if the cost has no coin amount
+     */
+    public String getCoinsText() {
+        if (!hasCoins()) {
+            return null;
+        }
+        return getCoins() + (isStar() ? "*" : "") + (isPlus() ? "+" : "");
+    }
+
+    @Override
+    public int compareTo(Cost other) {
+        return value < other.value ? -1 : (value == other.value ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Cost && ((Cost) object).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < getPotions(); i++) {
+            text.append('P');
+        }
+        if (hasCoins()) {
+            text.append(getCoins());
+        }
+        if (getDebt() > 0) {
+            text.append('D').append(getDebt());
+        }
+        if (isStar()) {
+            text.append('*');
+        }
+        if (isPlus()) {
+            text.append('+');
+        }
+        return text.toString();
+    }
+}
@@ -22,8 +22,6 @@
 
 package nl.spellenclubeindhoven.dominionshuffle.data;
 
-import android.util.Log;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -32,10 +30,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 public class Data {
 	private HashMap<String, Card> cardsMap = new HashMap<String, Card>();
@@ -45,6 +41,7 @@ public class Data {
 	private Collection<Group> groups;
 	private Collection<Card> nonKingdomCards;
 	private List<GroupOrCard> all = new LinkedList<GroupOrCard>();
+	private Card[] cardsById;
 	
 	public Data(Collection<Card> cards, Collection<Group> groups, Collection<Card> nonKingdomCards) {
 		this.cards = Collections.unmodifiableCollection(cards);
@@ -59,6 +56,13 @@ public class Data {
 		for(Card card : nonKingdomCards) nonKingdomCardsMap.put(card.getName(), card);
 		all.addAll(groups);
 		all.addAll(cards);
+
+		int cardCount = 0;
+		for(Card card : cards) cardCount = Math.max(cardCount, card.getId() + 1);
+		for(Card card : nonKingdomCards) cardCount = Math.max(cardCount, card.getId() + 1);
+		cardsById = new Card[cardCount];
+		for(Card card : cards) cardsById[card.getId()] = card;
+		for(Card card : nonKingdomCards) cardsById[card.getId()] = card;
 	}
 
 	public Collection<Card> getCards() {
@@ -75,6 +79,33 @@ public class Data {
 		return card;
 	}
 	
+	public Card getCard(int id) {
+		return cardsById[id];
+	}
+
+	/**
+	 * Number of card ids in use, kingdom and non kingdom cards together
+	 */
+	public int getCardCount() {
+		return cardsById.length;
+	}
+
+	/**
+	 * Gets the kingdom cards with a cost from the minimum to the maximum (both included), in the order of Cost.<br/>
+	 * As Cost orders by coins first, "2" to "3*+" also takes e.g. "2P" and "2D4", but not "3P" or "4".
+	 * Unlike the Cost groups in the data, this goes by the printed cost alone.
+	 */
+	public CardSet getCardsCosting(Cost minimum, Cost maximum) {
+		CardSet result = new CardSet(cardsById);
+		for(Card card : cards) {
+			Cost cost = card.getCostValue();
+			if(cost.compareTo(minimum) >= 0 && cost.compareTo(maximum) <= 0) {
+				result.add(card);
+			}
+		}
+		return result;
+	}
+
 	public Collection<Group> getGroups() {
 		return groups;
 	}
@@ -113,6 +144,9 @@ public class Data {
 		LinkedList<Card> cards = new LinkedList<Card>();
 		HashMap<String, Card> cardsMap = new HashMap<String, Card>();
 		JSONArray jsonCards = jsonData.getJSONArray("cards");
+		JSONArray jsonNonKingdomCards = jsonData.getJSONArray("non_kingdom_cards");
+		// Every card gets a dense id, kingdom cards first, so groups can be stored as bitsets
+		Card[] cardsById = new Card[jsonCards.length() + jsonNonKingdomCards.length()];
 		for(int i = 0; i < jsonCards.length(); i++) {
 			JSONObject jsonCard = jsonCards.getJSONObject(i);
 			JSONArray jsonTypes = jsonCard.getJSONArray("type");
@@ -122,11 +156,13 @@ public class Data {
 			}
 			boolean basicOrNonSupply = jsonCard.optBoolean("basic", false) || jsonCard.optBoolean("nonSupply", false);
             Card card = new Card(
+				i,
 				jsonCard.getString("card"),
 				jsonCard.getString("set"),
 				jsonCard.getString("cost"),
 				types,
 				basicOrNonSupply);
+			cardsById[card.getId()] = card;
 			cards.add(card);
 			cardsMap.put(card.getName(), card);
 		}
@@ -136,7 +172,7 @@ public class Data {
 		for(int i = 0; i < jsonGroups.length(); i++) {
 			JSONObject jsonGroup = jsonGroups.getJSONObject(i);
 			JSONArray jsonGroupCards = jsonGroup.getJSONArray("cards");
-			Set<Card> groupCards = new HashSet<>();
+			CardSet groupCards = new CardSet(cardsById);
 			for(int j = 0; j < jsonGroupCards.length(); j++) {
 				Card groupCard = cardsMap.get(jsonGroupCards.getString(j));
 				if(groupCard == null) {
@@ -153,7 +189,6 @@ public class Data {
 
 		// Load Non Kingdom Cards after groups, so we can import an entire group if needed (ie. Events)
 		LinkedList<Card> nonKingdomCards = new LinkedList<Card>();
-		JSONArray jsonNonKingdomCards = jsonData.getJSONArray("non_kingdom_cards");
 		for(int i = 0; i < jsonNonKingdomCards.length(); i++) {
 			JSONObject jsonCard = jsonNonKingdomCards.getJSONObject(i);
 			JSONArray jsonTypes = jsonCard.getJSONArray("type");
@@ -162,11 +197,13 @@ public class Data {
 				types.add(jsonTypes.getString(j));
 			}
 			Card card = new Card(
+					jsonCards.length() + i,
 					jsonCard.getString("card"),
 					jsonCard.getString("set"),
 					jsonCard.getString("cost"),
 					types,
 					true);
+			cardsById[card.getId()] = card;
 			nonKingdomCards.add(card);
 		}
 
@@ -0,0 +1,33 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * Settings that don't change, for using a CardSelector outside of the app.
+ */
+public class FixedSettings implements CardSelectorSettings {
+    final private int cardsToDraw;
+    final private boolean uniformSampling;
+
+    /**
+     * Creates the settings of a new install: drawing {@link Constants#DEFAULT_CARDS_TO_DRAW} cards by searching.
+     */
+    public FixedSettings() {
+        this(Constants.DEFAULT_CARDS_TO_DRAW, false);
+    }
+
+    public FixedSettings(int cardsToDraw, boolean uniformSampling) {
+        this.cardsToDraw = cardsToDraw;
+        this.uniformSampling = uniformSampling;
+    }
+
+    @Override
+    public int getCardsToDraw() {
+        return cardsToDraw;
+    }
+
+    @Override
+    public boolean isUniformSampling() {
+        return uniformSampling;
+    }
+}
@@ -22,15 +22,16 @@
 
 package nl.spellenclubeindhoven.dominionshuffle.data;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
 public class Group extends GroupOrCard {
+	private CardSet cardSet;
 	private Set<Card> cards;
 	
-	public Group(String name, Set<Card> cards) {
+	public Group(String name, CardSet cards) {
 		super(name);
+		this.cardSet = cards;
 		this.cards = Collections.unmodifiableSet(cards);
 	}
 
@@ -38,6 +39,18 @@ public class Group extends GroupOrCard {
 	public Set<Card> getCards() {
 		return cards;
 	}
+
+	/**
+	 * The bitset backing this group, for fast intersections in the solver. Must not be modified.
+	 */
+	CardSet getCardSet() {
+		return cardSet;
+	}
+
+	@Override
+	public boolean contains(Card card) {
+		return cardSet.contains(card);
+	}
 	
 	@Override
 	public String toString() {
@@ -0,0 +1,123 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Pool of Cards to pick from at random, backed by an array plus the position of every Card id in it.<br/>
+ * Adding, removing (by moving the last Card into the freed slot) and picking a random Card all take constant time,
+ * where picking from a Set means walking its iterator to a random index.
+ * <p>
+ * The order of the Cards changes as they are removed, so a Card removed and added again (e.g. when the
+ * SolutionSearch backtracks) won't end up in the same position. Picking is uniform either way.
+ */
+public class IndexedCardPool {
+    private Card[] cards;
+    /**
+     * For each Card id, its index in cards plus one, or 0 if the Card isn't in the pool
+     */
+    private int[] positions;
+    private int size = 0;
+
+    public IndexedCardPool() {
+        this(16);
+    }
+
+    /**
+     * @param capacity the highest Card id expected plus one, the pool grows if needed
+     */
+    public IndexedCardPool(int capacity) {
+        cards = new Card[Math.max(capacity, 1)];
+        positions = new int[Math.max(capacity, 1)];
+    }
+
+    public IndexedCardPool(Collection<Card> original) {
+        this(original.size());
+        for (Card card : original) {
+            add(card);
+        }
+    }
+
+    /**
+     * @return true if the Card was added, false if it was already in the pool
+     */
+    public boolean add(Card card) {
+        final int id = card.getId();
+        if (id >= positions.length) {
+            int[] newPositions = new int[Math.max(id + 1, positions.length * 2)];
+            System.arraycopy(positions, 0, newPositions, 0, positions.length);
+            positions = newPositions;
+        }
+        if (positions[id] != 0) {
+            return false;
+        }
+        if (size == cards.length) {
+            Card[] newCards = new Card[size * 2];
+            System.arraycopy(cards, 0, newCards, 0, size);
+            cards = newCards;
+        }
+        cards[size++] = card;
+        positions[id] = size;
+        return true;
+    }
+
+    /**
+     * @return true if the Card was removed, false if it wasn't in the pool
+     */
+    public boolean remove(Card card) {
+        final int id = card.getId();
+        if (id >= positions.length || positions[id] == 0) {
+            return false;
+        }
+        final int index = positions[id] - 1;
+        final Card last = cards[--size];
+        cards[index] = last;
+        positions[last.getId()] = index + 1;
+        cards[size] = null;
+        positions[id] = 0;
+        return true;
+    }
+
+    public boolean contains(Card card) {
+        final int id = card.getId();
+        return id < positions.length && positions[id] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the Card at the given position. Positions are not stable, they change as Cards are removed.
+     */
+    public Card get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return cards[index];
+    }
+
+    /**
+     * Picks a Card from the pool, every Card having the same chance.
+     *
+     * @return the picked Card, or null if the pool is empty
+     */
+    public Card pickRandom(Random random) {
+        if (size == 0) {
+            return null;
+        }
+        return cards[random.nextInt(size)];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[cards[i].getId()] = 0;
+            cards[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,767 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * Counts exactly how many different kingdoms the rules of a SolverPlan allow, without generating any of them.<br/>
+ * A kingdom is counted as the set of cards chosen by the search: the required cards plus available cards, with exactly
+ * the number of cards to draw counting against the draw, every Limit that applies within its minimum and maximum,
+ * a Bane card left for Young Witch, an extra pile left for Ferryman and a Prophecy for Omens. Which card becomes the
+ * Bane or the extra pile is not counted as a different kingdom.
+ * <p>
+ * The cards are split into the classes of interchangeable cards from {@link SolverPlan#getCardClasses()}, and
+ * the count is built up one class at a time: for every state (cards drawn, cards counted by each Limit, which
+ * conditions are met) it keeps the number of ways to get there, and taking k cards from a class of n adds
+ * C(n, k) ways to the state that leads to. Counts past what a Limit can tell apart are capped, so the number of states
+ * only depends on the Limits, not on the number of cards. States that can no longer be completed are dropped, and a
+ * Limit is checked and forgotten as soon as no class to come can change it.
+ * <p>
+ * Cards not counting against the draw, like Events and Ways, are only in a kingdom when a Limit asks for them,
+ * as nothing else stops a kingdom from having all of them. These loose cards are left out unless a Limit with a
+ * minimum asks for them, one whose group has no available cards counting against the draw, like a minimum of Events
+ * or the Ally a Liaison needs. Each such Limit takes no more loose cards from its group than its minimum. A maximum
+ * alone doesn't ask for any, otherwise a maximum of 2 Events would give almost every kingdom 2 Events, and neither
+ * does a minimum that the cards to draw can meet, like a minimum of +Buy. Required cards are never loose.
+ * The SolutionSearch can also take loose cards no Limit asks for, as it picks them along with the cards to draw, so
+ * the kingdoms counted here are the ones it can find without those.
+ * <p>
+ * The same states also allow picking a kingdom with every kingdom having exactly the same chance, which the
+ * SolutionSearch can't promise as it fills the smallest Limits first. Going back over the states, each one gets the
+ * number of ways to complete a kingdom from it. A kingdom is then picked class by class, taking k cards with a chance
+ * in proportion to C(n, k) times the ways to complete the state that leads to. The count and these numbers are only
+ * worked out once, after that picking a kingdom is a single pass over the classes.
+ * <p>
+ * Once counted, a counter can be used to pick kingdoms from several threads at the same time.
+ * <p>
+ * With many Limits the number of states can still grow too large to keep, so counting gives up with
+ * {@link SolveError.Reason#TOO_COMPLEX_TO_COUNT} once more than MAX_STATES states are kept, and the CardSelector
+ * searches instead. Counting also checks a deadline and CancellationToken every CHECK_INTERVAL states.
+ */
+class KingdomCounter {
+    /**
+     * The most states kept over all classes, above this counting gives up rather than running out of memory
+     */
+    static final int MAX_STATES = 1 << 18;
+    /**
+     * Number of states worked out between checks of the deadline and cancellation, a power of 2
+     */
+    static final int CHECK_INTERVAL = 1024;
+
+    final private SolverPlan plan;
+    final private LimitTracker limitTracker;
+    final private int cardsToDraw;
+    final private int limitCount;
+    final private int[] minimums;
+    final private int[] maximums;
+    final private boolean[] conditional;
+    /**
+     * For each Limit, the count from which adding more cards makes no difference to it anymore
+     */
+    final private int[] caps;
+    /**
+     * The Limits already checked, which no class still to come can change
+     */
+    final private boolean[] finished;
+    final private int baneTotal;
+    final private int ferrymanTotal;
+    /**
+     * Whether choosing cards could leave no Bane card (or extra pile) for a Young Witch (or Ferryman) in the kingdom,
+     * only then the cards that could be used for it need counting
+     */
+    final private boolean trackBane;
+    final private boolean trackFerrymanExtra;
+    final private boolean prophecies;
+
+    // Worked out by count()
+    private BigInteger total;
+    /**
+     * The error counting gave up with for having too many states, counting again would only give up again
+     */
+    private SolveError tooComplex;
+    private List<CardClass> classes;
+    /**
+     * For each Limit, the index of the last class that can change it, -1 if no class can
+     */
+    private int[] lastClasses;
+    /**
+     * The states before each class, with the number of ways to get there, and the states after the last class
+     */
+    private List<Map<State, BigInteger>> layers;
+    /**
+     * The states before each class, with the number of ways to complete a kingdom from there, worked out for sampling
+     */
+    private List<Map<State, BigInteger>> completions;
+
+    // Positions in the state
+    final private int drawIndex;
+    final private int countIndex;
+    final private int conditionIndex;
+    final private int youngWitchIndex;
+    final private int ferrymanIndex;
+    final private int baneIndex;
+    final private int ferrymanExtraIndex;
+    final private int looseIndex;
+    final private int stateSize;
+
+    KingdomCounter(SolverPlan plan) {
+        this.plan = plan;
+        this.limitTracker = plan.createLimitTracker();
+        this.cardsToDraw = plan.getCardsToDraw();
+        this.limitCount = limitTracker.size();
+        minimums = new int[limitCount];
+        maximums = new int[limitCount];
+        conditional = new boolean[limitCount];
+        caps = new int[limitCount];
+        finished = new boolean[limitCount];
+        for (int i = 0; i < limitCount; i++) {
+            final Limit limit = limitTracker.getLimit(i);
+            minimums[i] = limit.getMinimum();
+            maximums[i] = limit.getMaximum();
+            conditional[i] = limit.hasCondition();
+            // Without a maximum, all that matters is whether the minimum is met
+            caps[i] = maximums[i] == Integer.MAX_VALUE ? minimums[i] : Math.max(minimums[i], maximums[i] + 1);
+        }
+        baneTotal = plan.getBaneCards().size();
+        ferrymanTotal = plan.getFerrymanCards().size();
+        trackBane = canChoose(Constants.CARD_YOUNG_WITCH) && canChooseAll(plan.getBaneCards());
+        trackFerrymanExtra = canChoose(Constants.CARD_FERRYMAN) && canChooseAll(plan.getFerrymanCards());
+        prophecies = !plan.getProphecyCards().isEmpty();
+
+        drawIndex = 0;
+        countIndex = 1;
+        conditionIndex = countIndex + limitCount;
+        youngWitchIndex = conditionIndex + limitCount;
+        ferrymanIndex = youngWitchIndex + 1;
+        baneIndex = ferrymanIndex + 1;
+        ferrymanExtraIndex = baneIndex + 1;
+        looseIndex = ferrymanExtraIndex + 1;
+        stateSize = looseIndex + limitCount;
+    }
+
+    SolverPlan getPlan() {
+        return plan;
+    }
+
+    private boolean canChoose(String name) {
+        final Card card = plan.getData().getCard(name);
+        return card != null && (plan.getAvailableCards().contains(card) || plan.getRequiredCards().contains(card));
+    }
+
+    /**
+     * Checks if a kingdom could take every one of the cards, only so many cards can count against the draw.
+     */
+    private boolean canChooseAll(CardSet cards) {
+        int drawCards = 0;
+        for (Card card : cards) {
+            if (card.countsTowardDraw()) {
+                drawCards++;
+            }
+        }
+        return drawCards <= cardsToDraw;
+    }
+
+    /**
+     * Counts the kingdoms, unless that was done before.
+     *
+     * @param cancellation token to stop counting from another thread, may be null
+     * @param deadline     System.nanoTime() to give up at, Long.MAX_VALUE for no deadline
+     * @param listener     listener told the number of states worked out so far, may be null
+     * @return the number of different kingdoms, 0 if the rules allow none
+     * @throws SolveTimeout when counting ran past the deadline or was cancelled, it can be tried again later
+     * @throws SolveError   when there are too many states to count the kingdoms
+     */
+    synchronized BigInteger count(CancellationToken cancellation, long deadline, SolveProgressListener listener) throws SolveError {
+        if (tooComplex != null) {
+            throw tooComplex;
+        }
+        if (total == null) {
+            try {
+                total = countKingdoms(new Work(cancellation, deadline, listener));
+            } catch (SolveError e) {
+                // Only keep what a finished count worked out
+                layers = null;
+                if (e.getReason() == SolveError.Reason.TOO_COMPLEX_TO_COUNT) {
+                    tooComplex = e;
+                }
+                throw e;
+            }
+        }
+        return total;
+    }
+
+    private BigInteger countKingdoms(Work work) throws SolveError {
+        Arrays.fill(finished, false);
+        classes = new ArrayList<>();
+        layers = new ArrayList<>();
+        for (CardClass cardClass : createClasses()) {
+            // Without a minimum asking for them, none of these cards can be in a kingdom
+            if (!cardClass.loose || cardClass.looseLimits.length > 0) {
+                classes.add(cardClass);
+            }
+        }
+
+        // Once no class to come can change a Limit, states that only differ in its count can be merged
+        lastClasses = new int[limitCount];
+        Arrays.fill(lastClasses, -1);
+        for (int i = 0; i < classes.size(); i++) {
+            for (int limit : classes.get(i).groupLimits) {
+                lastClasses[limit] = i;
+            }
+            for (int limit : classes.get(i).conditionLimits) {
+                lastClasses[limit] = i;
+            }
+        }
+
+        // Required cards are in every kingdom, so they're all taken before counting the rest
+        final int[] start = new int[stateSize];
+        for (Card card : plan.getRequiredCards()) {
+            if (!addCards(start, new CardClass(card, true), 1)) {
+                return BigInteger.ZERO;
+            }
+        }
+        Map<State, BigInteger> states = new HashMap<>();
+        states.put(new State(start), BigInteger.ONE);
+        states = finishLimits(states, -1);
+
+        // What the classes still to come can add, to drop states that can no longer become a kingdom
+        final int[] remaining = new int[stateSize];
+        for (CardClass cardClass : classes) {
+            addRemaining(remaining, cardClass);
+        }
+        int keptStates = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            layers.add(states);
+            keptStates += states.size();
+            addRemaining(remaining, classes.get(i), -1);
+            states = finishLimits(addClass(states, classes.get(i), remaining, keptStates, work, i), i);
+            if (states.isEmpty()) {
+                return BigInteger.ZERO;
+            }
+        }
+
+        final Map<State, BigInteger> kingdoms = new HashMap<>();
+        BigInteger total = BigInteger.ZERO;
+        for (Map.Entry<State, BigInteger> entry : states.entrySet()) {
+            if (isKingdom(entry.getKey().values)) {
+                kingdoms.put(entry.getKey(), entry.getValue());
+                total = total.add(entry.getValue());
+            }
+        }
+        layers.add(kingdoms);
+        return total;
+    }
+
+    /**
+     * Picks one of the kingdoms counted, every kingdom having the same chance.<br/>
+     * The Bane card, Ferryman extra pile and Prophecy the kingdom needs are picked from the cards left, each of those
+     * having the same chance as well.
+     *
+     * @return the kingdom, or null if the rules allow none
+     * @throws SolveError when there are too many states to count the kingdoms
+     */
+    Result sample(Random random) throws SolveError {
+        if (!prepareSampling(null, Long.MAX_VALUE, null)) {
+            return null;
+        }
+
+        final Result result = new Result();
+        final List<Card> cards = result.getCards();
+        cards.addAll(plan.getRequiredCards());
+        int[] values = layers.get(0).keySet().iterator().next().values;
+        for (int i = 0; i < classes.size(); i++) {
+            final CardClass cardClass = classes.get(i);
+            final BigInteger[] binomials = cardClass.getBinomials();
+            BigInteger pick = randomBelow(completions.get(i).get(new State(values)), random);
+            for (int k = 0; k <= cardClass.size(); k++) {
+                final int[] next = values.clone();
+                if (k > 0 && !addCards(next, cardClass, k)) {
+                    break;
+                }
+                if (!finish(next, i)) {
+                    continue;
+                }
+                final BigInteger ways = getCompletions(i + 1, next).multiply(binomials[k]);
+                if (pick.compareTo(ways) < 0) {
+                    cardClass.pickRandom(cards, k, random);
+                    values = next;
+                    break;
+                }
+                pick = pick.subtract(ways);
+            }
+        }
+
+        addExtraCards(result, random);
+        return result;
+    }
+
+    /**
+     * Counts the kingdoms and works out the ways to complete a kingdom from every state, going back from the last
+     * class, unless that was done before. After that, picking a kingdom is quick.
+     *
+     * @return false if there are no kingdoms to pick from
+     * @throws SolveTimeout when it ran past the deadline or was cancelled, it can be tried again later
+     * @throws SolveError   when there are too many states to count the kingdoms
+     * @see #count(CancellationToken, long, SolveProgressListener)
+     */
+    synchronized boolean prepareSampling(CancellationToken cancellation, long deadline, SolveProgressListener listener) throws SolveError {
+        if (count(cancellation, deadline, listener).signum() == 0) {
+            return false;
+        }
+        if (completions != null) {
+            return true;
+        }
+
+        final List<Map<State, BigInteger>> completions = new ArrayList<>();
+        for (int i = 0; i <= classes.size(); i++) {
+            completions.add(null);
+        }
+        final Map<State, BigInteger> kingdoms = new HashMap<>();
+        for (State state : layers.get(classes.size()).keySet()) {
+            kingdoms.put(state, BigInteger.ONE);
+        }
+        completions.set(classes.size(), kingdoms);
+        final Work work = new Work(cancellation, deadline, listener);
+        for (int i = classes.size() - 1; i >= 0; i--) {
+            final CardClass cardClass = classes.get(i);
+            final BigInteger[] binomials = cardClass.getBinomials();
+            final Map<State, BigInteger> layerCompletions = new HashMap<>();
+            for (State state : layers.get(i).keySet()) {
+                work.addState(i);
+                BigInteger ways = BigInteger.ZERO;
+                for (int k = 0; k <= cardClass.size(); k++) {
+                    final int[] next = state.values.clone();
+                    // Taking more cards only ever adds to the counts, so once it breaks a rule more cards will too
+                    if (k > 0 && !addCards(next, cardClass, k)) {
+                        break;
+                    }
+                    final BigInteger nextWays = finish(next, i) ? completions.get(i + 1).get(new State(next)) : null;
+                    if (nextWays != null) {
+                        ways = ways.add(nextWays.multiply(binomials[k]));
+                    }
+                }
+                if (ways.signum() > 0) {
+                    layerCompletions.put(state, ways);
+                }
+            }
+            completions.set(i, layerCompletions);
+        }
+        this.completions = completions;
+        return true;
+    }
+
+    private BigInteger getCompletions(int layer, int[] values) {
+        final BigInteger ways = completions.get(layer).get(new State(values));
+        return ways == null ? BigInteger.ZERO : ways;
+    }
+
+    /**
+     * Picks the Bane card, Ferryman extra pile and Prophecy, in the same way the SolutionSearch adds them.
+     */
+    private void addExtraCards(Result result, Random random) {
+        final List<Card> cards = result.getCards();
+        if (cards.contains(plan.getData().getCard(Constants.CARD_YOUNG_WITCH))) {
+            final IndexedCardPool banePool = new IndexedCardPool(plan.getBaneCards());
+            for (Card card : cards) {
+                banePool.remove(card);
+            }
+            result.setBaneCard(banePool.pickRandom(random));
+            cards.add(result.getBaneCard());
+        }
+        if (cards.contains(plan.getData().getCard(Constants.CARD_FERRYMAN))) {
+            final IndexedCardPool ferrymanPool = new IndexedCardPool(plan.getFerrymanCards());
+            for (Card card : cards) {
+                ferrymanPool.remove(card);
+            }
+            result.setFerrymanExtraCard(ferrymanPool.pickRandom(random));
+            cards.add(result.getFerrymanExtraCard());
+        }
+        for (Card card : cards) {
+            if (card.hasType(CardTypes.OMEN)) {
+                cards.add(new IndexedCardPool(plan.getProphecyCards()).pickRandom(random));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets a number from 0 up to (not including) the bound, every number having the same chance.
+     */
+    private static BigInteger randomBelow(BigInteger bound, Random random) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+
+    /**
+     * Gets the classes of the available cards, with the number of available cards in each.
+     */
+    private List<CardClass> createClasses() {
+        final int[] cardClasses = plan.getCardClasses();
+        final Map<Integer, CardClass> classes = new HashMap<>();
+        final List<CardClass> result = new ArrayList<>();
+        for (Card card : plan.getAvailableCards()) {
+            CardClass cardClass = classes.get(cardClasses[card.getId()]);
+            if (cardClass == null) {
+                cardClass = new CardClass(card);
+                classes.put(cardClasses[card.getId()], cardClass);
+                result.add(cardClass);
+            }
+            cardClass.cards.add(card);
+        }
+        return result;
+    }
+
+    private void addRemaining(int[] remaining, CardClass cardClass, int sign) {
+        if (cardClass.draw) {
+            remaining[drawIndex] += sign * cardClass.size();
+        }
+        for (int limit : cardClass.groupLimits) {
+            remaining[countIndex + limit] += sign * cardClass.size();
+        }
+    }
+
+    private void addRemaining(int[] remaining, CardClass cardClass) {
+        addRemaining(remaining, cardClass, 1);
+    }
+
+    /**
+     * Takes 0 up to all cards from the class in every state.
+     *
+     * @param remaining  the cards drawn and counted by each Limit that the classes after this one could still add
+     * @param keptStates the number of states kept for the classes before this one
+     * @throws SolveError when the states would be more than MAX_STATES, or the work ran out of time
+     */
+    private Map<State, BigInteger> addClass(Map<State, BigInteger> states, CardClass cardClass, int[] remaining,
+                                            int keptStates, Work work, int layer) throws SolveError {
+        final Map<State, BigInteger> newStates = new HashMap<>(states.size() * 2);
+        final BigInteger[] binomials = cardClass.getBinomials();
+        for (Map.Entry<State, BigInteger> entry : states.entrySet()) {
+            work.addState(layer);
+            if (keptStates + newStates.size() > MAX_STATES) {
+                throw new SolveError(SolveError.Reason.TOO_COMPLEX_TO_COUNT,
+                        "More than " + MAX_STATES + " states needed to count the kingdoms, too many rules to count them");
+            }
+            if (canComplete(entry.getKey().values, remaining)) {
+                add(newStates, entry.getKey(), entry.getValue());
+            }
+            int[] previous = entry.getKey().values;
+            for (int k = 1; k <= cardClass.size(); k++) {
+                final int[] values = entry.getKey().values.clone();
+                // Taking more cards only ever adds to the counts, so once it breaks a rule more cards will too
+                if (!addCards(values, cardClass, k)) {
+                    break;
+                }
+                if (!canComplete(values, remaining)) {
+                    continue;
+                }
+                if (k > 1 && Arrays.equals(values, previous)) {
+                    // Every count is capped, so taking even more cards ends up in this same state
+                    BigInteger ways = BigInteger.ZERO;
+                    for (int j = k; j <= cardClass.size(); j++) {
+                        ways = ways.add(binomials[j]);
+                    }
+                    add(newStates, new State(values), entry.getValue().multiply(ways));
+                    break;
+                }
+                add(newStates, new State(values), entry.getValue().multiply(binomials[k]));
+                previous = values;
+            }
+        }
+        return newStates;
+    }
+
+    /**
+     * Drops the states breaking the Limits last changed by the given class, and forgets the counts for those Limits
+     * in the others.
+     */
+    private Map<State, BigInteger> finishLimits(Map<State, BigInteger> states, int cardClass) {
+        boolean finishing = false;
+        for (int lastClass : lastClasses) {
+            finishing |= lastClass == cardClass;
+        }
+        if (!finishing) {
+            return states;
+        }
+        final Map<State, BigInteger> newStates = new HashMap<>(states.size());
+        for (Map.Entry<State, BigInteger> entry : states.entrySet()) {
+            final int[] values = entry.getKey().values.clone();
+            if (finish(values, cardClass)) {
+                add(newStates, new State(values), entry.getValue());
+            }
+        }
+        for (int i = 0; i < limitCount; i++) {
+            finished[i] |= lastClasses[i] == cardClass;
+        }
+        return newStates;
+    }
+
+    /**
+     * Checks the minimums of the Limits last changed by the given class, and forgets their counts in the state.
+     *
+     * @return false if a minimum isn't met
+     */
+    private boolean finish(int[] values, int cardClass) {
+        for (int i = 0; i < limitCount; i++) {
+            if (lastClasses[i] == cardClass) {
+                if (values[countIndex + i] < minimums[i] && appliesTo(values, i)) {
+                    return false;
+                }
+                values[countIndex + i] = 0;
+                values[conditionIndex + i] = 0;
+                values[looseIndex + i] = 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the cards still to come could fill up the draw and the minimums of the Limits that apply.
+     */
+    private boolean canComplete(int[] values, int[] remaining) {
+        if (values[drawIndex] + remaining[drawIndex] < cardsToDraw) {
+            return false;
+        }
+        for (int i = 0; i < limitCount; i++) {
+            if (!finished[i] && values[countIndex + i] + remaining[countIndex + i] < minimums[i] && appliesTo(values, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void add(Map<State, BigInteger> states, State state, BigInteger ways) {
+        final BigInteger current = states.get(state);
+        states.put(state, current == null ? ways : current.add(ways));
+    }
+
+    /**
+     * Updates the state for k more cards of the class.
+     *
+     * @return false if the cards break a rule that can't be mended by taking more cards
+     */
+    private boolean addCards(int[] values, CardClass cardClass, int k) {
+        // Omens can't be taken without a Prophecy to go with them
+        if (cardClass.omen && !prophecies) {
+            return false;
+        }
+        if (cardClass.draw) {
+            values[drawIndex] += k;
+            if (values[drawIndex] > cardsToDraw) {
+                return false;
+            }
+        }
+        for (int limit : cardClass.looseLimits) {
+            values[looseIndex + limit] += k;
+            if (values[looseIndex + limit] > minimums[limit]) {
+                return false;
+            }
+        }
+        for (int limit : cardClass.groupLimits) {
+            values[countIndex + limit] = Math.min(values[countIndex + limit] + k, caps[limit]);
+        }
+        for (int limit : cardClass.conditionLimits) {
+            values[conditionIndex + limit] = 1;
+        }
+        for (int limit : cardClass.groupLimits) {
+            if (isMaximumExceeded(values, limit)) {
+                return false;
+            }
+        }
+        for (int limit : cardClass.conditionLimits) {
+            if (isMaximumExceeded(values, limit)) {
+                return false;
+            }
+        }
+
+        if (cardClass.youngWitch) {
+            values[youngWitchIndex] = 1;
+        }
+        if (cardClass.ferryman) {
+            values[ferrymanIndex] = 1;
+        }
+        if (cardClass.bane && trackBane) {
+            values[baneIndex] = Math.min(values[baneIndex] + k, baneTotal);
+        }
+        if (cardClass.ferrymanExtra && trackFerrymanExtra) {
+            values[ferrymanExtraIndex] = Math.min(values[ferrymanExtraIndex] + k, ferrymanTotal);
+        }
+        // The Bane and extra pile come from the cards not chosen
+        if (values[youngWitchIndex] != 0 && values[baneIndex] >= baneTotal) {
+            return false;
+        }
+        return values[ferrymanIndex] == 0 || values[ferrymanExtraIndex] < ferrymanTotal;
+    }
+
+    private boolean appliesTo(int[] values, int limit) {
+        return !conditional[limit] || values[conditionIndex + limit] != 0;
+    }
+
+    private boolean isMaximumExceeded(int[] values, int limit) {
+        return values[countIndex + limit] > maximums[limit] && appliesTo(values, limit);
+    }
+
+    private boolean isKingdom(int[] values) {
+        if (values[drawIndex] != cardsToDraw) {
+            return false;
+        }
+        for (int i = 0; i < limitCount; i++) {
+            if (!finished[i] && values[countIndex + i] < minimums[i] && appliesTo(values, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Everything about a class of cards that matters for counting, along with the available cards in it
+     */
+    private class CardClass {
+        final boolean draw;
+        /**
+         * Whether the cards don't count against the draw and aren't required
+         */
+        final boolean loose;
+        final int[] groupLimits;
+        /**
+         * For loose cards, the Limits with a minimum asking for them, each taking no more loose cards than that.
+         * Only Limits whose group has no cards to draw ask for them.
+         */
+        final int[] looseLimits;
+        final int[] conditionLimits;
+        final boolean youngWitch;
+        final boolean ferryman;
+        final boolean omen;
+        final boolean bane;
+        final boolean ferrymanExtra;
+        final List<Card> cards = new ArrayList<>();
+        private BigInteger[] binomials;
+
+        CardClass(Card card) {
+            this(card, false);
+        }
+
+        /**
+         * @param required whether the card is required, those were asked for so they're never loose
+         */
+        CardClass(Card card, boolean required) {
+            draw = card.countsTowardDraw();
+            groupLimits = limitTracker.getGroupLimits(card);
+            conditionLimits = limitTracker.getConditionLimits(card);
+            loose = !draw && !required;
+            int looseLimitCount = 0;
+            final int[] looseLimits = new int[loose ? groupLimits.length : 0];
+            for (int i = 0; i < looseLimits.length; i++) {
+                if (minimums[groupLimits[i]] > 0 && plan.getLimitDrawCards(groupLimits[i]).isEmpty()) {
+                    looseLimits[looseLimitCount++] = groupLimits[i];
+                }
+            }
+            this.looseLimits = Arrays.copyOf(looseLimits, looseLimitCount);
+            youngWitch = card.getName().equals(Constants.CARD_YOUNG_WITCH);
+            ferryman = card.getName().equals(Constants.CARD_FERRYMAN);
+            omen = card.hasType(CardTypes.OMEN);
+            bane = plan.getBaneCards().contains(card);
+            ferrymanExtra = plan.getFerrymanCards().contains(card);
+        }
+
+        int size() {
+            return cards.size();
+        }
+
+        /**
+         * Gets the number of ways to take k cards from the class, for every k up to its size
+         */
+        BigInteger[] getBinomials() {
+            if (binomials == null) {
+                final int size = size();
+                binomials = new BigInteger[size + 1];
+                binomials[0] = BigInteger.ONE;
+                for (int k = 1; k <= size; k++) {
+                    binomials[k] = binomials[k - 1].multiply(BigInteger.valueOf(size - k + 1)).divide(BigInteger.valueOf(k));
+                }
+            }
+            return binomials;
+        }
+
+        /**
+         * Adds k of the cards of this class, every set of k cards having the same chance
+         */
+        void pickRandom(List<Card> result, int k, Random random) {
+            final Card[] pool = cards.toArray(new Card[cards.size()]);
+            for (int i = 0; i < k; i++) {
+                final int picked = i + random.nextInt(pool.length - i);
+                final Card card = pool[picked];
+                pool[picked] = pool[i];
+                pool[i] = card;
+                result.add(card);
+            }
+        }
+
+    }
+
+    /**
+     * The states worked out by one count, to give up once it runs past its deadline or is cancelled
+     */
+    private static class Work {
+        final private CancellationToken cancellation;
+        final private long deadline;
+        final private SolveProgressListener listener;
+        final private long startTime = System.nanoTime();
+        private long states = 0;
+
+        Work(CancellationToken cancellation, long deadline, SolveProgressListener listener) {
+            this.cancellation = cancellation;
+            this.deadline = deadline;
+            this.listener = listener;
+        }
+
+        /**
+         * Counts a state worked out, and at the first and then every CHECK_INTERVAL states checks whether to give up.
+         *
+         * @param layer the class the state is for, reported to the listener as the depth
+         */
+        void addState(int layer) throws SolveTimeout {
+            if ((states++ & (CHECK_INTERVAL - 1)) != 0) {
+                return;
+            }
+            if (cancellation != null && cancellation.isCancelled()) {
+                throw new SolveTimeout(true, states, System.nanoTime() - startTime);
+            }
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                throw new SolveTimeout(false, states, System.nanoTime() - startTime);
+            }
+            if (listener != null) {
+                listener.onProgress(states, layer);
+            }
+        }
+    }
+
+    private static class State {
+        final private int[] values;
+        final private int hashCode;
+
+        State(int[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof State && hashCode == ((State) object).hashCode && Arrays.equals(values, ((State) object).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
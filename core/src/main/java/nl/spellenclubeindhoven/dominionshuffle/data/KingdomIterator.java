@@ -0,0 +1,156 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates kingdoms for the rules of a CardSelector one at a time, as they are asked for.<br/>
+ * Every kingdom handed out is different: a fingerprint of its cards (including the Bane and Ferryman extra card)
+ * is kept, and a kingdom seen before is simply generated again with the next seed. Each kingdom is generated like
+ * {@link CardSelector#generate(Data, long)} does, so its seed gives the same kingdom there. Once too many searches
+ * in a row only find kingdoms seen before, the rules are taken to have no new kingdoms left and the iteration ends.
+ * It also ends when the search finds no kingdom at all.
+ * <p>
+ * Get one from {@link CardSelector#kingdomIterator(Data, long)}.
+ */
+public class KingdomIterator implements Iterator<Result> {
+    /**
+     * Number of searches in a row finding only kingdoms seen before, before giving up
+     */
+    static final int MAX_DUPLICATES_IN_A_ROW = 1000;
+
+    final private CardSelector selector;
+    final private SolverPlan plan;
+    final private boolean uniformSampling;
+    final private SplitMix64 random;
+    /**
+     * The searches to use, null when picking from the KingdomCounter
+     */
+    final private SearchPortfolio portfolio;
+    /**
+     * Fingerprints of the kingdoms handed out, shared with the iterators split off from this one
+     */
+    final private LongHashSet fingerprints;
+    /**
+     * Number of kingdoms still to be handed out, shared with the iterators split off from this one
+     */
+    final private AtomicLong remaining;
+    private Result next;
+    private boolean finished = false;
+
+    /**
+     * @param random gives the seed of each kingdom
+     */
+    KingdomIterator(CardSelector selector, SolverPlan plan, boolean uniformSampling, SplitMix64 random, LongHashSet fingerprints, AtomicLong remaining) {
+        this.selector = selector;
+        this.plan = plan;
+        this.uniformSampling = uniformSampling;
+        this.random = random;
+        this.fingerprints = fingerprints;
+        this.remaining = remaining;
+        this.portfolio = uniformSampling ? null : new SearchPortfolio(plan);
+    }
+
+    /**
+     * Creates another iterator over the same rules, with its own searches and seeds, that shares the
+     * kingdoms seen and the number still to be handed out with this one. Used to generate on more than one thread.
+     */
+    KingdomIterator split() {
+        return new KingdomIterator(selector, plan, uniformSampling, random.split(), fingerprints, remaining);
+    }
+
+    /**
+     * @return the number of kingdoms still to be handed out by this iterator and those split off from it
+     */
+    long getRemaining() {
+        return Math.max(0, remaining.get());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = findNext();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Result next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Result result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private Result findNext() {
+        if (!reserve()) {
+            return null;
+        }
+        for (int duplicates = 0; duplicates < MAX_DUPLICATES_IN_A_ROW; duplicates++) {
+            final Result result;
+            try {
+                result = selector.generate(plan, portfolio, 1, null, Long.MAX_VALUE, null, random.nextLong());
+            } catch (SolveError e) {
+                break;
+            }
+            if (fingerprints.add(fingerprint(result))) {
+                return result;
+            }
+        }
+        // Hand the kingdom back, another iterator may still find one
+        remaining.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Takes one kingdom from those still to be handed out.
+     */
+    private boolean reserve() {
+        while (true) {
+            final long current = remaining.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets a 64 bit hash of the kingdom cards, the same for the same cards in any order.<br/>
+     * Basic and non-supply cards, like Colony and Platinum or the Shelters, don't make a kingdom different.
+     */
+    private static long fingerprint(Result result) {
+        final List<Card> cards = result.getCards();
+        int[] ids = new int[cards.size()];
+        int i = 0;
+        for (Card card : cards) {
+            if (!card.isBasicOrNonSupply()) {
+                ids[i++] = card.getId();
+            }
+        }
+        ids = Arrays.copyOf(ids, i);
+        Arrays.sort(ids);
+
+        long hash = 0;
+        for (int id : ids) {
+            hash = SplitMix64.mix(hash + id + 1);
+        }
+        // The same cards with a different Bane or Ferryman extra card play differently
+        hash = SplitMix64.mix(hash ^ (result.getBaneCard() == null ? -1 : result.getBaneCard().getId()));
+        hash = SplitMix64.mix(hash ^ ((long) (result.getFerrymanExtraCard() == null ? -1 : result.getFerrymanExtraCard().getId()) << 32));
+        return hash;
+    }
+}
@@ -0,0 +1,59 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the distinct kingdoms of a {@link KingdomIterator}, so they can be consumed by a (parallel) Stream.<br/>
+ * Splitting gives the new part its own search, sharing the kingdoms seen and the number still to be handed out,
+ * so the parts together still never hand out the same kingdom twice.
+ * <p>
+ * Streams need Android 7.0 (API 24), this class is only meant for tools running on a full Java runtime.
+ * Get one from {@link CardSelector#kingdomSpliterator(Data, long)}.
+ */
+public class KingdomSpliterator implements Spliterator<Result> {
+    final private KingdomIterator iterator;
+    /**
+     * This part's share of the kingdoms still to be handed out, halved on every split so splitting comes to an end
+     * even when there is no limit to the number of kingdoms
+     */
+    private long estimate;
+
+    KingdomSpliterator(KingdomIterator iterator, long estimate) {
+        this.iterator = iterator;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Result> action) {
+        if (!iterator.hasNext()) {
+            return false;
+        }
+        action.accept(iterator.next());
+        if (estimate > 0) {
+            estimate--;
+        }
+        return true;
+    }
+
+    @Override
+    public Spliterator<Result> trySplit() {
+        // Every part searches on its own, so it's only worth splitting while there are kingdoms left for both
+        if (estimateSize() < 2) {
+            return null;
+        }
+        final long splitEstimate = estimate / 2;
+        estimate -= splitEstimate;
+        return new KingdomSpliterator(iterator.split(), splitEstimate);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.min(estimate, iterator.getRemaining());
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+}
@@ -75,15 +75,19 @@ public class Limit {
 
     /**
      * Count the number of cards in the given collection that this rule
-     * applies to.
+     * applies to.<br/>
+     * A CardSet is counted with a bitwise intersection instead of a lookup per card.
      *
      * @param cards the cards to countKingdomCards
      * @return the number of cards
      */
     public int count(Collection<Card> cards) {
+        if (cards instanceof CardSet) {
+            return group.getCardSet().intersectionSize((CardSet) cards);
+        }
         int count = 0;
         for (Card card : cards) {
-            if (group.getCards().contains(card)) {
+            if (group.contains(card)) {
                 count++;
             }
         }
@@ -98,6 +102,9 @@ public class Limit {
         if (condition == null) {
             return true;
         }
+        if (condition.isGroup() && cards instanceof CardSet) {
+            return ((Group) condition).getCardSet().intersects((CardSet) cards);
+        }
         if (condition.isCard()) {
             // This is a card, check to see if it is in the provided set
             if (cards.contains(condition)) {
@@ -0,0 +1,239 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of how a growing and shrinking set of cards stands against a list of Limits.<br/>
+ * Adding or removing a card only updates the Limits whose group or condition contains that card,
+ * so checking whether all Limits are satisfied is a lookup rather than counting all the cards again.
+ */
+class LimitTracker {
+    private static final int[] NO_LIMITS = new int[0];
+
+    private final List<Limit> limits;
+    private final int[] minimums;
+    private final int[] maximums;
+    private final boolean[] conditional;
+    /**
+     * Number of tracked cards in the group of each limit
+     */
+    private final int[] counts;
+    /**
+     * Number of tracked cards matching the condition of each limit, the limit applies once this is above 0
+     */
+    private final int[] conditionCounts;
+    /**
+     * For each card id, the limits whose group contains that card
+     */
+    private final int[][] groupLimits;
+    /**
+     * For each card id, the limits whose condition contains that card
+     */
+    private final int[][] conditionLimits;
+
+    private int unmetMinimums = 0;
+    private int exceededMaximums = 0;
+
+    LimitTracker(List<Limit> limits, int cardCount) {
+        this.limits = limits;
+        final int size = limits.size();
+        minimums = new int[size];
+        maximums = new int[size];
+        conditional = new boolean[size];
+        counts = new int[size];
+        conditionCounts = new int[size];
+
+        final int[] groupLimitCounts = new int[cardCount];
+        final int[] conditionLimitCounts = new int[cardCount];
+        for (int i = 0; i < size; i++) {
+            final Limit limit = limits.get(i);
+            for (Card card : limit.getGroup().getCardSet()) {
+                groupLimitCounts[card.getId()]++;
+            }
+            if (limit.hasCondition()) {
+                for (Card card : limit.getCondition().getCards()) {
+                    conditionLimitCounts[card.getId()]++;
+                }
+            }
+        }
+        groupLimits = createIndex(groupLimitCounts);
+        conditionLimits = createIndex(conditionLimitCounts);
+
+        for (int i = 0; i < size; i++) {
+            final Limit limit = limits.get(i);
+            minimums[i] = limit.getMinimum();
+            maximums[i] = limit.getMaximum();
+            conditional[i] = limit.hasCondition();
+            for (Card card : limit.getGroup().getCardSet()) {
+                final int id = card.getId();
+                groupLimits[id][groupLimits[id].length - groupLimitCounts[id]--] = i;
+            }
+            if (limit.hasCondition()) {
+                for (Card card : limit.getCondition().getCards()) {
+                    final int id = card.getId();
+                    conditionLimits[id][conditionLimits[id].length - conditionLimitCounts[id]--] = i;
+                }
+            }
+            if (isMinimumUnmet(i)) {
+                unmetMinimums++;
+            }
+        }
+    }
+
+    /**
+     * Creates a tracker for the same limits, sharing the index of cards with the original but tracking its own cards.
+     * The new tracker starts out with the cards the original has at that moment.
+     */
+    LimitTracker(LimitTracker original) {
+        limits = original.limits;
+        minimums = original.minimums;
+        maximums = original.maximums;
+        conditional = original.conditional;
+        groupLimits = original.groupLimits;
+        conditionLimits = original.conditionLimits;
+        counts = original.counts.clone();
+        conditionCounts = original.conditionCounts.clone();
+        unmetMinimums = original.unmetMinimums;
+        exceededMaximums = original.exceededMaximums;
+    }
+
+    private static int[][] createIndex(int[] sizes) {
+        final int[][] index = new int[sizes.length][];
+        for (int i = 0; i < sizes.length; i++) {
+            index[i] = sizes[i] == 0 ? NO_LIMITS : new int[sizes[i]];
+        }
+        return index;
+    }
+
+    void add(Card card) {
+        update(card, 1);
+    }
+
+    void remove(Card card) {
+        update(card, -1);
+    }
+
+    private void update(Card card, int change) {
+        final int id = card.getId();
+        if (id >= groupLimits.length) {
+            return;
+        }
+        for (int limit : groupLimits[id]) {
+            final boolean minimumUnmet = isMinimumUnmet(limit);
+            final boolean maximumExceeded = isMaximumExceeded(limit);
+            counts[limit] += change;
+            updateTotals(limit, minimumUnmet, maximumExceeded);
+        }
+        for (int limit : conditionLimits[id]) {
+            final boolean minimumUnmet = isMinimumUnmet(limit);
+            final boolean maximumExceeded = isMaximumExceeded(limit);
+            conditionCounts[limit] += change;
+            updateTotals(limit, minimumUnmet, maximumExceeded);
+        }
+    }
+
+    private void updateTotals(int limit, boolean minimumWasUnmet, boolean maximumWasExceeded) {
+        if (minimumWasUnmet != isMinimumUnmet(limit)) {
+            unmetMinimums += minimumWasUnmet ? -1 : 1;
+        }
+        if (maximumWasExceeded != isMaximumExceeded(limit)) {
+            exceededMaximums += maximumWasExceeded ? -1 : 1;
+        }
+    }
+
+    /**
+     * Checks to see if the limit applies to the tracked cards, either because it has no condition or the condition is met.
+     */
+    boolean appliesTo(int limit) {
+        return !conditional[limit] || conditionCounts[limit] > 0;
+    }
+
+    private boolean isMinimumUnmet(int limit) {
+        return counts[limit] < minimums[limit] && appliesTo(limit);
+    }
+
+    private boolean isMaximumExceeded(int limit) {
+        return counts[limit] > maximums[limit] && appliesTo(limit);
+    }
+
+    /**
+     * @return the number of longs {@link #getActiveConditions(long[])} needs, one bit for every limit
+     */
+    int getConditionWords() {
+        return (conditional.length + 63) >>> 6;
+    }
+
+    /**
+     * Sets a bit for every conditional limit that applies, the n-th bit standing for the n-th limit.
+     *
+     * @param active at least {@link #getConditionWords()} longs, filled with the bits
+     */
+    void getActiveConditions(long[] active) {
+        Arrays.fill(active, 0);
+        for (int i = 0; i < conditional.length; i++) {
+            if (conditional[i] && conditionCounts[i] > 0) {
+                active[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    int getCount(int limit) {
+        return counts[limit];
+    }
+
+    Limit getLimit(int limit) {
+        return limits.get(limit);
+    }
+
+    int size() {
+        return limits.size();
+    }
+
+    /**
+     * Gets the limits whose group contains the card.
+     */
+    int[] getGroupLimits(Card card) {
+        final int id = card.getId();
+        return id < groupLimits.length ? groupLimits[id] : NO_LIMITS;
+    }
+
+    /**
+     * Gets the limits whose condition contains the card.
+     */
+    int[] getConditionLimits(Card card) {
+        final int id = card.getId();
+        return id < conditionLimits.length ? conditionLimits[id] : NO_LIMITS;
+    }
+
+    /**
+     * Checks to see that no limit that applies has more cards than its maximum.
+     */
+    boolean maximumsSatisfied() {
+        return exceededMaximums == 0;
+    }
+
+    /**
+     * Checks to see that every limit that applies is satisfied.
+     */
+    boolean isSatisfied() {
+        return exceededMaximums == 0 && unmetMinimums == 0;
+    }
+
+    /**
+     * Gets the first limit (in the given order) that applies and still needs more cards for its minimum.
+     *
+     * @return the index of the limit, or -1 if all minimums are met
+     */
+    int firstUnmetMinimum() {
+        if (unmetMinimums == 0) {
+            return -1;
+        }
+        for (int i = 0; i < minimums.length; i++) {
+            if (isMinimumUnmet(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Set of longs in a single open-addressed array, without boxing every value into its own object.<br/>
+ * Used to remember the fingerprints of the kingdoms already handed out, so it's safe to share between threads.
+ */
+class LongHashSet {
+    /**
+     * Marks an empty slot, the value 0 itself is tracked separately
+     */
+    private static final long EMPTY = 0;
+
+    private long[] values = new long[64];
+    private int size = 0;
+    private boolean containsEmpty = false;
+
+    /**
+     * @return true if the value was added, false if it was already in the set
+     */
+    synchronized boolean add(long value) {
+        if (value == EMPTY) {
+            final boolean added = !containsEmpty;
+            containsEmpty = true;
+            return added;
+        }
+        // Keep the table at most half full, so probing stays short
+        if ((size + 1) * 2 > values.length) {
+            grow();
+        }
+        if (!insert(values, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    synchronized boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        final int mask = values.length - 1;
+        for (int i = slot(value, mask); values[i] != EMPTY; i = (i + 1) & mask) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized int size() {
+        return size + (containsEmpty ? 1 : 0);
+    }
+
+    private static boolean insert(long[] table, long value) {
+        final int mask = table.length - 1;
+        int i = slot(value, mask);
+        while (table[i] != EMPTY) {
+            if (table[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        return true;
+    }
+
+    private static int slot(long value, int mask) {
+        final long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        final long[] newValues = new long[values.length * 2];
+        for (long value : values) {
+            if (value != EMPTY) {
+                insert(newValues, value);
+            }
+        }
+        values = newValues;
+    }
+}
@@ -0,0 +1,99 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers partial selections the SolutionSearch has proven can't be completed, so it can skip them straight away
+ * when it comes across them again.<br/>
+ * Entries are keyed by how many cards were chosen from each class of interchangeable cards (see SolutionSearch)
+ * and which conditional Limits apply, so a selection that only swaps cards for ones the rules can't tell apart
+ * is skipped as well. They only hold as long as the rules, the Data and the number of cards to draw stay the same.
+ * Once full, the least recently used entry is dropped.
+ * <p>
+ * The SearchPortfolio gives every search a cache of its own, which is dropped once the search is done. A shared
+ * cache would let a search get further within its node limit depending on the searches that ran before it, and so
+ * change the kingdom found for a seed.
+ */
+class NogoodCache {
+    static final int DEFAULT_CAPACITY = 4096;
+
+    final private Map<Fingerprint, Boolean> entries;
+    private long evictions = 0;
+
+    NogoodCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    NogoodCache(final int capacity) {
+        entries = new LinkedHashMap<Fingerprint, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, Boolean> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Checks if the chosen cards are known not to lead to a solution.
+     *
+     * @param classCounts      the number of chosen cards in each class
+     * @param activeConditions bits for the conditional Limits that apply to the chosen cards, see
+     *                         {@link LimitTracker#getActiveConditions(long[])}
+     */
+    synchronized boolean contains(int[] classCounts, long[] activeConditions) {
+        return entries.get(new Fingerprint(classCounts, activeConditions)) != null;
+    }
+
+    synchronized void add(int[] classCounts, long[] activeConditions) {
+        entries.put(new Fingerprint(classCounts.clone(), activeConditions.clone()), Boolean.TRUE);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of entries dropped to make room for newer ones
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "NogoodCache[size=" + entries.size() + ", evictions=" + evictions + "]";
+    }
+
+    private static class Fingerprint {
+        final private int[] classCounts;
+        final private long[] activeConditions;
+        final private int hashCode;
+
+        Fingerprint(int[] classCounts, long[] activeConditions) {
+            this.classCounts = classCounts;
+            this.activeConditions = activeConditions;
+            this.hashCode = 31 * Arrays.hashCode(classCounts) + Arrays.hashCode(activeConditions);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Fingerprint)) {
+                return false;
+            }
+            final Fingerprint other = (Fingerprint) object;
+            return hashCode == other.hashCode && Arrays.equals(activeConditions, other.activeConditions)
+                    && Arrays.equals(classCounts, other.classCounts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -23,13 +23,24 @@
 package nl.spellenclubeindhoven.dominionshuffle.data;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.RandomAccess;
 
 public class RandomCardPicker {
 	private static Random random = new Random();
 	
+	static public Card pickRandom(IndexedCardPool cards) {
+		return cards.pickRandom(random);
+	}
+	
 	static public <T> T pickRandom(Collection<T> cards) {
 		int selected = random.nextInt(cards.size());
+		if(cards instanceof List && cards instanceof RandomAccess) {
+			return ((List<T>) cards).get(selected);
+		}
+		
+		// No random access, so walk to the selected card. Use an IndexedCardPool where this matters.
 		int position = 0;
 		for(T card : cards) {
 			if(selected == position) return card;
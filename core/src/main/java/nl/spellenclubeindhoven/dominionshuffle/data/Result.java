@@ -22,6 +22,10 @@
 
 package nl.spellenclubeindhoven.dominionshuffle.data;
 
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import java.util.LinkedList;
 import java.util.List;
 
@@ -38,6 +42,10 @@ public class Result {
     private Card obeliskCard;
     private List<Card> traitCards;
     private List<Card> cards = new LinkedList<>();
+    /**
+     * Seed the result was generated from, see {@link CardSelector#generate(Data, long)}, null if not known
+     */
+    private Long seed;
 
     public Result() {
     }
@@ -48,6 +56,7 @@ public class Result {
         this.obeliskCard = result.obeliskCard;
         this.traitCards = result.traitCards;
         this.cards = new LinkedList<>(result.cards);
+        this.seed = result.seed;
     }
 
     public void addCard(Card card) {
@@ -92,6 +101,91 @@ public class Result {
         this.cards = cards;
     }
 
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the result with the names of its cards, as stored by the app between runs.
+     */
+    public JSONObject toJson() throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put("cards", createJSONArray(cards));
+        if (ferrymanExtraCard != null) {
+            json.put("ferrymanExtraCard", ferrymanExtraCard.getName());
+        }
+        if (baneCard != null) {
+            json.put("baneCard", baneCard.getName());
+        }
+        if (obeliskCard != null) {
+            json.put("obeliskCard", obeliskCard.getName());
+        }
+        if (traitCards != null) {
+            json.put("traitCards", createJSONArray(traitCards));
+        }
+        if (seed != null) {
+            json.put("seed", seed.longValue());
+        }
+        return json;
+    }
+
+    /**
+     * Reads a result written by {@link #toJson()}.
+     *
+     * @return the result, or null if one of its cards isn't in the data
+     */
+    public static Result fromJson(JSONObject json, Data data) throws JSONException {
+        final Result result = new Result();
+        final List<Card> cards = readCards(json.getJSONArray("cards"), data);
+        if (cards == null) {
+            return null;
+        }
+        result.setCards(cards);
+        if (json.has("ferrymanExtraCard")) {
+            result.setFerrymanExtraCard(data.getCard(json.getString("ferrymanExtraCard")));
+        }
+        if (json.has("baneCard")) {
+            result.setBaneCard(data.getCard(json.getString("baneCard")));
+        }
+        if (json.has("obeliskCard")) {
+            result.setObeliskCard(data.getCard(json.getString("obeliskCard")));
+        }
+        if (json.has("traitCards")) {
+            result.setTraitCards(readCards(json.getJSONArray("traitCards"), data));
+        }
+        if (json.has("seed")) {
+            result.setSeed(json.getLong("seed"));
+        }
+        return result;
+    }
+
+    private static JSONArray createJSONArray(List<Card> cards) {
+        final JSONArray array = new JSONArray();
+        for (final Card card : cards) {
+            array.put(card.getName());
+        }
+        return array;
+    }
+
+    /**
+     * @return the cards with the names in the array, or null if one isn't in the data
+     */
+    private static List<Card> readCards(JSONArray array, Data data) throws JSONException {
+        final List<Card> cards = new LinkedList<>();
+        for (int i = 0; i < array.length(); i++) {
+            final Card card = data.getCard(array.getString(i));
+            if (card == null) {
+                return null;
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder("[");
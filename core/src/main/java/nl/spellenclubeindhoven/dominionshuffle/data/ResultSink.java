@@ -0,0 +1,8 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Receives the solutions of {@link CardSelector#generateBatch(Data, int, ResultSink)} one by one, as they are found.
+ */
+public interface ResultSink {
+    void accept(Result result);
+}
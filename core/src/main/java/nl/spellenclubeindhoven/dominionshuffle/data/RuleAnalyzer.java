@@ -0,0 +1,135 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Quick checks on a set of rules that can prove there is no solution, without searching for one.<br/>
+ * The checks only ever reject rules that really can't be satisfied, passing them doesn't mean a solution exists.
+ */
+class RuleAnalyzer {
+    private final CardSet availableCards;
+    private final CardSet requiredCards;
+    private final List<Limit> limits;
+    private final int cardsToDraw;
+    private final CardSet availableDrawCards = new CardSet();
+    private int requiredDrawCount = 0;
+
+    /**
+     * @param availableCards the cards that can be picked, not including the required cards
+     */
+    RuleAnalyzer(CardSet availableCards, CardSet requiredCards, List<Limit> limits, int cardsToDraw) {
+        this.availableCards = availableCards;
+        this.requiredCards = requiredCards;
+        this.limits = limits;
+        this.cardsToDraw = cardsToDraw;
+
+        for (Card card : availableCards) {
+            if (card.countsTowardDraw()) {
+                availableDrawCards.add(card);
+            }
+        }
+        for (Card card : requiredCards) {
+            if (card.countsTowardDraw()) {
+                requiredDrawCount++;
+            }
+        }
+    }
+
+    /**
+     * Runs all checks.
+     *
+     * @return the problem found, or null if none of the checks could rule out a solution
+     */
+    SolveError analyze() {
+        if (requiredDrawCount > cardsToDraw) {
+            return new SolveError(SolveError.Reason.TOO_MANY_CARDS, "There are " + requiredDrawCount + " required cards, but only " + cardsToDraw + " are drawn");
+        }
+        final int remainingDraws = cardsToDraw - requiredDrawCount;
+        if (availableDrawCards.size() < remainingDraws) {
+            return new SolveError(SolveError.Reason.NOT_ENOUGH_CARDS, "Only " + availableDrawCards.size() + " cards to draw the remaining " + remainingDraws + " from");
+        }
+
+        // Minimums that must be met from the draw cards, for the limits that are known to apply
+        final List<DrawNeed> drawNeeds = new ArrayList<>();
+
+        for (Limit limit : limits) {
+            if (!limit.appliesTo(requiredCards)) {
+                // Whether a conditional limit applies depends on the cards picked, so we can't say anything about it yet
+                continue;
+            }
+            final String groupName = limit.getGroup().getName();
+            final int requiredCount = limit.count(requiredCards);
+
+            if (limit.getMinimum() > limit.getMaximum()) {
+                return new SolveError(SolveError.Reason.UNSATISFIED_RULE, "Rule for " + groupName + " has a minimum above its maximum");
+            }
+            if (requiredCount > limit.getMaximum()) {
+                return new SolveError(SolveError.Reason.REQUIRED_OVER_MAXIMUM, "Required cards take " + groupName + " over its maximum of " + limit.getMaximum());
+            }
+            if (requiredCount >= limit.getMinimum()) {
+                continue;
+            }
+
+            final CardSet groupCards = limit.getGroup().getCardSet();
+            final int groupAvailable = availableCards.intersectionSize(groupCards);
+            final CardSet groupDrawCards = new CardSet(availableDrawCards);
+            groupDrawCards.retainAll(groupCards);
+            final int groupDrawAvailable = groupDrawCards.size();
+            final int groupOtherAvailable = groupAvailable - groupDrawAvailable;
+            final int reachable = requiredCount + groupOtherAvailable + Math.min(groupDrawAvailable, remainingDraws);
+            if (reachable < limit.getMinimum()) {
+                return new SolveError(SolveError.Reason.NOT_ENOUGH_CARDS, "Rule for " + groupName + " needs " + limit.getMinimum() + " cards, but at most " + reachable + " can be picked");
+            }
+
+            final int drawNeed = limit.getMinimum() - requiredCount - groupOtherAvailable;
+            if (drawNeed > 0) {
+                drawNeeds.add(new DrawNeed(groupName, groupDrawCards, drawNeed));
+            }
+        }
+
+        // Minimums on groups without any draw cards in common can't share cards, so together they must fit in the draws left
+        Collections.sort(drawNeeds, (n1, n2) -> n2.need - n1.need);
+        final List<DrawNeed> disjointNeeds = new ArrayList<>();
+        int totalNeed = 0;
+        for (DrawNeed drawNeed : drawNeeds) {
+            boolean disjoint = true;
+            for (DrawNeed other : disjointNeeds) {
+                if (drawNeed.cards.intersects(other.cards)) {
+                    disjoint = false;
+                    break;
+                }
+            }
+            if (disjoint) {
+                disjointNeeds.add(drawNeed);
+                totalNeed += drawNeed.need;
+                if (totalNeed > remainingDraws) {
+                    final StringBuilder groupNames = new StringBuilder();
+                    for (DrawNeed need : disjointNeeds) {
+                        if (groupNames.length() > 0) {
+                            groupNames.append(", ");
+                        }
+                        groupNames.append(need.groupName);
+                    }
+                    return new SolveError(SolveError.Reason.OVERCONSTRAINED_MINIMUMS, "Minimums for " + groupNames + " need " + totalNeed + " cards, but only " + remainingDraws + " are drawn");
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static class DrawNeed {
+        final String groupName;
+        final CardSet cards;
+        final int need;
+
+        DrawNeed(String groupName, CardSet cards, int need) {
+            this.groupName = groupName;
+            this.cards = cards;
+            this.need = need;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The rules of a CardSelector as they were at one moment, which never change afterwards.<br/>
+ * The CardSelector publishes a new snapshot after every edit, so a generate takes the rules as a whole, never
+ * halfway through an edit, and the UI can keep editing while kingdoms are generated on other threads.
+ * <p>
+ * The snapshot also keeps what was worked out for its rules: the SolverPlan and the searches of the last
+ * generate. Any number of threads can generate from the same snapshot at once without locking; two
+ * threads asking for a plan at the same time may both work it out, after which either one is kept.
+ */
+public final class RuleSnapshot {
+    final private Set<Group> includedGroups;
+    final private Set<Group> excludedGroups;
+    final private CardSet includedCards;
+    final private CardSet excludedCards;
+    final private CardSet requiredCards;
+    /**
+     * Copies of the limits, in the order of the groups
+     */
+    final private List<Limit> limits;
+
+    /**
+     * Plan for the Data and number of cards to draw last generated with, null before the first generate
+     */
+    private volatile SolverPlan plan;
+    /**
+     * Searches kept between generates, null while in use
+     */
+    final private AtomicReference<SearchPortfolio> portfolio = new AtomicReference<>();
+
+    RuleSnapshot(Collection<Group> includedGroups, Collection<Group> excludedGroups, CardSet includedCards,
+                 CardSet excludedCards, CardSet requiredCards, Collection<Limit> limits) {
+        this.includedGroups = Collections.unmodifiableSet(new HashSet<>(includedGroups));
+        this.excludedGroups = Collections.unmodifiableSet(new HashSet<>(excludedGroups));
+        this.includedCards = new CardSet(includedCards);
+        this.excludedCards = new CardSet(excludedCards);
+        this.requiredCards = new CardSet(requiredCards);
+        final List<Limit> limitCopies = new ArrayList<>(limits.size());
+        for (Limit limit : limits) {
+            limitCopies.add(new Limit(limit));
+        }
+        this.limits = Collections.unmodifiableList(limitCopies);
+    }
+
+    public boolean hasIncludedGroup(Group group) {
+        return includedGroups.contains(group);
+    }
+
+    public boolean hasExcludedGroup(Group group) {
+        return excludedGroups.contains(group);
+    }
+
+    public boolean hasIncludedCard(Card card) {
+        return includedCards.contains(card);
+    }
+
+    public boolean hasExcludedCard(Card card) {
+        return excludedCards.contains(card);
+    }
+
+    public boolean hasRequiredCard(Card card) {
+        return requiredCards.contains(card);
+    }
+
+    /**
+     * @return a copy of the limit for the group, or null if it has none
+     */
+    public Limit getLimit(Group group) {
+        for (Limit limit : limits) {
+            if (limit.getGroup() == group) {
+                return new Limit(limit);
+            }
+        }
+        return null;
+    }
+
+    Set<Group> getIncludedGroups() {
+        return includedGroups;
+    }
+
+    Set<Group> getExcludedGroups() {
+        return excludedGroups;
+    }
+
+    CardSet getIncludedCards() {
+        return includedCards;
+    }
+
+    CardSet getExcludedCards() {
+        return excludedCards;
+    }
+
+    CardSet getRequiredCards() {
+        return requiredCards;
+    }
+
+    List<Limit> getLimits() {
+        return limits;
+    }
+
+    /**
+     * Gets the plan for the rules, only working it out again when the Data or number of cards to draw changed.
+     */
+    SolverPlan getPlan(Data data, int cardsToDraw) {
+        SolverPlan plan = this.plan;
+        if (plan == null || plan.getData() != data || plan.getCardsToDraw() != cardsToDraw) {
+            final CardSet availableCards = CardSelector.createAvailableCards(includedGroups, excludedGroups, includedCards, excludedCards, requiredCards);
+            plan = new SolverPlan(data, availableCards, requiredCards, excludedCards, CardSelector.createSearchLimits(data, limits), cardsToDraw);
+            this.plan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Takes the searches kept for the plan, or new ones if there are none or they are in use by another generate.
+     * They are put back with {@link #returnPortfolio(SearchPortfolio)}.
+     */
+    SearchPortfolio takePortfolio(SolverPlan plan) {
+        final SearchPortfolio portfolio = this.portfolio.getAndSet(null);
+        if (portfolio == null || portfolio.getPlan() != plan) {
+            return new SearchPortfolio(plan);
+        }
+        return portfolio;
+    }
+
+    void returnPortfolio(SearchPortfolio portfolio) {
+        this.portfolio.set(portfolio);
+    }
+
+    public String toJson() throws JSONException {
+        JSONObject root = new JSONObject();
+
+        root.put("includedCards", createJSONArray(includedCards));
+        root.put("excludedCards", createJSONArray(excludedCards));
+        root.put("requiredCards", createJSONArray(requiredCards));
+        root.put("includedGroups", createJSONArray(includedGroups));
+        root.put("excludedGroups", createJSONArray(excludedGroups));
+
+        JSONArray jsonRules = new JSONArray();
+        for (Limit limit : limits) {
+            JSONObject jsonLimit = new JSONObject();
+            jsonLimit.put("group", limit.getGroup().getName());
+            jsonLimit.put("min", limit.getMinimum());
+            jsonLimit.put("max", limit.getMaximum());
+            if (limit.getCondition() != null) {
+                jsonLimit.put("condition", limit.getCondition().getName());
+            }
+            jsonRules.put(jsonLimit);
+        }
+        root.put("rules", jsonRules);
+
+        return root.toString();
+    }
+
+    private static JSONArray createJSONArray(Collection<? extends GroupOrCard> list) {
+        final JSONArray array = new JSONArray();
+        for (GroupOrCard item : list) {
+            array.put(item.getName());
+        }
+        return array;
+    }
+}
@@ -0,0 +1,231 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An endless sequence of searches, each picking cards in its own random order and allowed to enter a number of frames
+ * that follows the Luby sequence (1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ... times FIRST_NODE_LIMIT). The search with the
+ * lowest index that finds a solution within its limit wins.<br/>
+ * On one thread this restarts a search that got stuck in a bad random order, usually only the first search runs.
+ * On more threads every thread keeps taking the next search, so all of them keep trying other random orders until
+ * one of them wins, and a search stops as soon as one before it has won.
+ * Either way the winner only depends on the random generator handed to {@link #search}, not on the number of
+ * threads or how they are scheduled, so the same seed always gives the same solution.
+ * <p>
+ * A search that fails within its limit without being stopped went through every option, so the rules have no
+ * solution and the other searches are stopped too. The limits keep growing, so for rules without a solution some
+ * search eventually gets to go through every option.
+ * <p>
+ * A portfolio is used by one thread at a time, it's reset and reused for the next solution.
+ */
+class SearchPortfolio {
+    /**
+     * Number of frames a search may enter for a 1 in the Luby sequence
+     */
+    static final long FIRST_NODE_LIMIT = 128;
+    /**
+     * Index of the winner while there is none
+     */
+    private static final int NO_WINNER = Integer.MAX_VALUE;
+
+    final private SolverPlan plan;
+    /**
+     * The searches of every thread, reused for each next search the thread takes, only created once they are first needed
+     */
+    private SolutionSearch[] searches = new SolutionSearch[1];
+    /**
+     * The random generator of every search started so far, split from the one of {@link #search} in the order of the
+     * searches, so each search always gets the same order whichever thread asks for it first
+     */
+    final private List<SplitMix64> randoms = new ArrayList<>();
+    private SplitMix64 random;
+    /**
+     * Lowest index of the searches that found a solution, NO_WINNER while there is none, -1 once a search failed
+     */
+    final private AtomicInteger winner = new AtomicInteger();
+    /**
+     * The search that found the solution of the winner
+     */
+    private SolutionSearch winningSearch;
+    final private AtomicInteger failureStatus = new AtomicInteger();
+    final private AtomicInteger nextSearch = new AtomicInteger();
+    /**
+     * Frames entered by the searches that finished
+     */
+    final private AtomicLong nodes = new AtomicLong();
+    final private AtomicLong progressNodes = new AtomicLong();
+    private SolverStatistics statistics;
+
+    SearchPortfolio(SolverPlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Runs the searches, each with a generator split from the given one and a NogoodCache of its own.
+     *
+     * @param threads   number of threads to run the searches on, the calling thread being one of them
+     * @param executor  the threads to run the searches on besides the calling thread, only used for more than one thread
+     * @param cancellation token to stop all searches, may be null
+     * @param deadline     System.nanoTime() to stop all searches at, Long.MAX_VALUE for no deadline
+     * @param listener     listener for the progress of all searches together, may be null
+     * @return SOLVED, CANCELLED, TIMED_OUT, or the status code explaining why no solution could be found
+     */
+    int search(SplitMix64 random, int threads, ExecutorService executor, CancellationToken cancellation, long deadline,
+               SolveProgressListener listener) throws InterruptedException {
+        winner.set(NO_WINNER);
+        winningSearch = null;
+        failureStatus.set(SolutionSearch.SOLVED);
+        nextSearch.set(0);
+        nodes.set(0);
+        progressNodes.set(0);
+        // Split once, however many searches run, so the generator is left the same for any number of threads
+        this.random = random.split();
+        randoms.clear();
+        if (searches.length < threads) {
+            searches = Arrays.copyOf(searches, threads);
+        }
+
+        final int helpers = Math.max(0, threads - 1);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(helpers);
+        for (int i = 0; i < helpers; i++) {
+            final int thread = i + 1;
+            executor.execute(() -> {
+                try {
+                    runSearches(thread, cancellation, deadline, listener);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    winner.set(-1);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        try {
+            runSearches(0, cancellation, deadline, listener);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            winner.set(-1);
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            winner.set(-1);
+            throw e;
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (failureStatus.get() != SolutionSearch.SOLVED) {
+            return failureStatus.get();
+        }
+        if (winningSearch == null) {
+            return SolutionSearch.CANCELLED;
+        }
+        return SolutionSearch.SOLVED;
+    }
+
+    /**
+     * Gets the number of frames the search with the given index may enter.
+     */
+    static long getNodeLimit(int index) {
+        // The Luby sequence: for i = 2^k - 1 it's 2^(k-1), otherwise it repeats the sequence before the last 2^(k-1) - 1
+        long i = index + 1L;
+        while (true) {
+            final long power = Long.highestOneBit(i + 1);
+            if (i + 1 == power) {
+                return FIRST_NODE_LIMIT * (power >>> 1);
+            }
+            i -= power - 1;
+        }
+    }
+
+    /**
+     * Sets the statistics to add the work of every search to once it's done, null to not collect any.
+     */
+    void setStatistics(SolverStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    SolverPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return the number of frames entered by all searches of the last {@link #search}
+     */
+    long getNodes() {
+        return nodes.get();
+    }
+
+    /**
+     * Builds the Result from the solution of the winning search.
+     */
+    Result getResult() {
+        return winningSearch.getResult();
+    }
+
+    private synchronized SplitMix64 getRandom(int index) {
+        while (randoms.size() <= index) {
+            randoms.add(random.split());
+        }
+        return randoms.get(index);
+    }
+
+    /**
+     * Keeps taking the next search that hasn't started yet and running it, until none are left that can still win.
+     *
+     * @param thread the number of the thread running the searches, 0 for the calling thread
+     */
+    private void runSearches(int thread, CancellationToken cancellation, long deadline, SolveProgressListener listener) {
+        int index;
+        while ((index = nextSearch.getAndIncrement()) < winner.get() && (cancellation == null || !cancellation.isCancelled())) {
+            final SplitMix64 random = getRandom(index);
+            if (searches[thread] == null) {
+                searches[thread] = new SolutionSearch(plan, random);
+            }
+            final SolutionSearch search = searches[thread];
+            search.reset(random);
+            final NogoodCache nogoodCache = new NogoodCache();
+            search.setNogoodCache(nogoodCache);
+            search.setCancellation(cancellation);
+            search.setDeadline(deadline);
+            search.setProgressListener(listener, progressNodes);
+            search.setPortfolio(winner, index);
+            search.setNodeLimit(getNodeLimit(index));
+            final SolverStatistics searchStatistics = statistics != null ? new SolverStatistics() : null;
+            search.setStatistics(searchStatistics);
+
+            final int status = search.search();
+            nodes.addAndGet(search.getNodes());
+            if (searchStatistics != null) {
+                searchStatistics.nogoodEvictions += nogoodCache.getEvictions();
+                statistics.add(searchStatistics);
+            }
+            if (status == SolutionSearch.SOLVED) {
+                setWinner(index, search);
+                // This thread's search holds the solution now, it can't take another one
+                return;
+            } else if (status != SolutionSearch.CANCELLED && status != SolutionSearch.NODE_LIMIT) {
+                // Either out of time, or the search went through every option
+                failureStatus.compareAndSet(SolutionSearch.SOLVED, status);
+                winner.set(-1);
+            }
+        }
+    }
+
+    private synchronized void setWinner(int index, SolutionSearch search) {
+        if (index < winner.get()) {
+            winner.set(index);
+            winningSearch = search;
+        }
+    }
+}
@@ -0,0 +1,746 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * Backtracking search for a set of cards satisfying all Limits, used by the CardSelector.<br/>
+ * Rather than recursing per drawn card, it keeps an explicit stack of frames and changes the chosen cards
+ * and the available cards in place, undoing those changes when it backtracks.
+ * Dead ends are reported with status codes, only the outcome of the whole search is turned into a SolveError.
+ * <p>
+ * After every card it propagates the Limits: cards that would take a Limit over its maximum are removed from
+ * the candidates, and a branch is abandoned as soon as a minimum can no longer be reached with the candidates and
+ * draws that are left.
+ * <p>
+ * The candidates are also kept in IndexedCardPools, one for all of them and one per Limit for those in its group,
+ * along with pools of the cards that can still be the Bane or Ferryman card, so every random pick takes constant time.
+ * <p>
+ * With a NogoodCache, every partial selection that fails is remembered, and selections already in the cache are
+ * abandoned without searching them again. Cards are grouped into classes of cards the rules can't tell apart (same
+ * Limit groups and conditions, same part in the draw and the Bane and Ferryman rules), and the cache works on the
+ * number of cards chosen from each class: swapping cards within a class can't turn a failure into a solution.
+ */
+class SolutionSearch {
+    static final int SOLVED = 0;
+    static final int RULES_TOO_STRICT = 1;
+    static final int UNSATISFIED_RULE = 2;
+    static final int NO_BANE = 3;
+    static final int NO_FERRYMAN_EXTRA = 4;
+    static final int NO_PROPHECY = 5;
+    /**
+     * The search was stopped from outside before it finished
+     */
+    static final int CANCELLED = 6;
+    /**
+     * The search entered its maximum number of frames before it finished
+     */
+    static final int NODE_LIMIT = 7;
+    /**
+     * The search ran past its deadline before it finished
+     */
+    static final int TIMED_OUT = 8;
+    /**
+     * Number of frames between reports to the progress listener
+     */
+    static final int PROGRESS_INTERVAL = 256;
+    /**
+     * Number of frames between checks of the deadline, a power of 2
+     */
+    static final int DEADLINE_INTERVAL = 16;
+    /**
+     * Internal status for a node that is neither solved nor failed yet
+     */
+    private static final int UNDECIDED = -1;
+
+    // Flags stored in the trail with the card id, telling which sets the card was removed from
+    private static final int REMOVED_AVAILABLE = 1;
+    private static final int REMOVED_CANDIDATE = 2;
+
+    private final SolverPlan plan;
+    private final Data data;
+    private Random random;
+    private final int cardsToDraw;
+    private final CardSet drawCards;
+
+    // Search state, changed in place as we go deeper and undone as we backtrack
+    /**
+     * Cards not yet tried, these are also used to pick the Bane and Ferryman cards
+     */
+    private final CardSet availableCards;
+    /**
+     * Available cards that can still be added without breaking a maximum, the cards we pick from
+     */
+    private final CardSet candidateCards;
+    private final IndexedCardPool candidatePool;
+    /**
+     * For each limit, the candidates in its group
+     */
+    private final IndexedCardPool[] limitCandidatePools;
+    /**
+     * Available cards that could be the Bane card
+     */
+    private final IndexedCardPool banePool;
+    /**
+     * Available cards that could be the Ferryman extra card
+     */
+    private final IndexedCardPool ferrymanPool;
+    private final IndexedCardPool prophecyPool;
+    private final CardSet chosenCards;
+    private final LimitTracker limitTracker;
+    private final List<Card> cards = new ArrayList<>();
+    private int drawCount = 0;
+    private Card baneCard;
+    private Card ferrymanExtraCard;
+    /**
+     * Ids and flags of cards removed from availableCards and candidateCards, in order, so they can be put back when backtracking
+     */
+    private int[] trail = new int[64];
+    private int trailSize = 0;
+    /**
+     * For every frame on the stack, where its part of the trail starts
+     */
+    private int[] frameTrailStarts = new int[16];
+
+    private NogoodCache nogoodCache;
+    /**
+     * Statistics to count the work of this search in, null when they're not collected
+     */
+    private SolverStatistics statistics;
+    private CancellationToken cancellation;
+    /**
+     * System.nanoTime() to stop searching at, Long.MAX_VALUE for no deadline
+     */
+    private long deadline = Long.MAX_VALUE;
+    private SolveProgressListener progressListener;
+    /**
+     * Frames entered by all searches reporting to the progress listener, counted every PROGRESS_INTERVAL frames
+     */
+    private AtomicLong progressNodes;
+    /**
+     * Number of frames entered by the current search, the one with the required cards included
+     */
+    private long nodes = 0;
+    private long nodeLimit = Long.MAX_VALUE;
+    /**
+     * Lowest index of the searches of its SearchPortfolio that found a solution, see {@link #setPortfolio(AtomicInteger, int)}
+     */
+    private AtomicInteger winner;
+    private int index;
+    /**
+     * For each card id, the class of interchangeable cards it's in
+     */
+    private int[] cardClasses;
+    /**
+     * The number of chosen cards in each class, only counted when there is a NogoodCache
+     */
+    private int[] classCounts;
+    /**
+     * Bits for the conditional Limits that apply, filled in before every use of the NogoodCache
+     */
+    private long[] activeConditions;
+    /**
+     * Number of times no Bane or Ferryman extra card was left. Those failures depend on the cards tried before,
+     * not just the chosen cards, so a frame below one of them can't go into the NogoodCache.
+     */
+    private int extraCardFailures = 0;
+    /**
+     * For every frame on the stack, the number of extraCardFailures when it was entered
+     */
+    private int[] frameExtraCardFailures = new int[16];
+
+    SolutionSearch(SolverPlan plan, Random random) {
+        this.plan = plan;
+        this.data = plan.getData();
+        this.random = random;
+        this.limitTracker = plan.createLimitTracker();
+        this.cardsToDraw = plan.getCardsToDraw();
+        this.drawCards = plan.getDrawCards();
+        this.availableCards = new CardSet(plan.getAvailableCards());
+        this.candidateCards = new CardSet(plan.getAvailableCards());
+        this.chosenCards = new CardSet();
+
+        final int cardCount = data.getCardCount();
+        candidatePool = new IndexedCardPool(cardCount);
+        limitCandidatePools = new IndexedCardPool[limitTracker.size()];
+        for (int i = 0; i < limitCandidatePools.length; i++) {
+            limitCandidatePools[i] = new IndexedCardPool(cardCount);
+        }
+        banePool = new IndexedCardPool(cardCount);
+        ferrymanPool = new IndexedCardPool(cardCount);
+        fillPools();
+        prophecyPool = new IndexedCardPool(plan.getProphecyCards());
+
+        for (Card card : plan.getRequiredCards()) {
+            addCard(card);
+        }
+    }
+
+    /**
+     * Puts the search back to how it was before it ran, so it can search again for another solution.<br/>
+     * This reuses everything the search has built, so it's cheaper than creating a new search from the same plan,
+     * and picks the same cards as a new search would for the same random order.
+     *
+     * @param random the random order for the next search
+     */
+    void reset(Random random) {
+        this.random = random;
+        // Take off the Bane, Ferryman and Prophecy cards, which were never added as chosen cards
+        while (cards.size() > chosenCards.size()) {
+            cards.remove(cards.size() - 1);
+        }
+        while (cards.size() > plan.getRequiredCards().size()) {
+            removeLastCard();
+        }
+        restoreAvailable(0);
+        fillPools();
+        baneCard = null;
+        ferrymanExtraCard = null;
+        extraCardFailures = 0;
+        nodes = 0;
+    }
+
+    /**
+     * Sets the cache of failed selections to check and fill while searching, null to search without one.<br/>
+     * The cache must only have been used by searches on the same rules.
+     */
+    void setNogoodCache(NogoodCache nogoodCache) {
+        this.nogoodCache = nogoodCache;
+        if (nogoodCache == null) {
+            cardClasses = null;
+            classCounts = null;
+            activeConditions = null;
+            return;
+        }
+
+        cardClasses = plan.getCardClasses();
+        int classCount = 0;
+        for (int cardClass : cardClasses) {
+            classCount = Math.max(classCount, cardClass + 1);
+        }
+        classCounts = new int[classCount];
+        activeConditions = new long[limitTracker.getConditionWords()];
+        for (Card card : chosenCards) {
+            classCounts[cardClasses[card.getId()]]++;
+        }
+    }
+
+    private boolean isNogood() {
+        limitTracker.getActiveConditions(activeConditions);
+        return nogoodCache.contains(classCounts, activeConditions);
+    }
+
+    /**
+     * Sets the statistics to count the work of the search in, null to not collect any.<br/>
+     * They're updated without locking, so they must not be shared with another search running at the same time.
+     */
+    void setStatistics(SolverStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Sets the token to stop the search, it's checked before every card so the search stops soon after it's cancelled.
+     */
+    void setCancellation(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Sets the System.nanoTime() to give up with TIMED_OUT at, Long.MAX_VALUE for no deadline.<br/>
+     * It's checked every DEADLINE_INTERVAL frames, so the search can run a little past it.
+     */
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the listener to report progress to every PROGRESS_INTERVAL frames, null for none.
+     *
+     * @param progressNodes the frames entered by all searches reporting to the listener, shared between them
+     */
+    void setProgressListener(SolveProgressListener progressListener, AtomicLong progressNodes) {
+        this.progressListener = progressListener;
+        this.progressNodes = progressNodes;
+    }
+
+    /**
+     * Sets the number of frames the search may enter before it gives up with NODE_LIMIT.
+     */
+    void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Makes the search part of a SearchPortfolio, it's cancelled as soon as a search with a lower index has won.
+     */
+    void setPortfolio(AtomicInteger winner, int index) {
+        this.winner = winner;
+        this.index = index;
+    }
+
+    /**
+     * @return the number of frames entered by the last search, a measure of the work it took
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @return SOLVED, CANCELLED, or the status code explaining why no solution could be found
+     */
+    int search() {
+        int depth = 0;
+        frameTrailStarts[0] = trailSize;
+        frameExtraCardFailures[0] = extraCardFailures;
+        boolean entering = true;
+        int status = UNDECIDED;
+
+        while (true) {
+            if (entering) {
+                if (cancellation != null && cancellation.isCancelled()) {
+                    return CANCELLED;
+                }
+                if (winner != null && winner.get() < index) {
+                    return CANCELLED;
+                }
+                if (++nodes > nodeLimit) {
+                    return NODE_LIMIT;
+                }
+                if (progressListener != null && nodes % PROGRESS_INTERVAL == 0) {
+                    progressListener.onProgress(progressNodes.addAndGet(PROGRESS_INTERVAL), depth);
+                }
+                if (deadline != Long.MAX_VALUE && (nodes & (DEADLINE_INTERVAL - 1)) == 0
+                        && System.nanoTime() - deadline > 0) {
+                    return TIMED_OUT;
+                }
+                if (statistics != null) {
+                    statistics.nodes++;
+                    statistics.maxDepth = Math.max(statistics.maxDepth, depth);
+                }
+                if (nogoodCache != null && isNogood()) {
+                    // Been here before, and it didn't work out then either
+                    if (statistics != null) {
+                        statistics.nogoodHits++;
+                    }
+                    status = RULES_TOO_STRICT;
+                } else {
+                    if (nogoodCache != null && statistics != null) {
+                        statistics.nogoodMisses++;
+                    }
+                    status = checkNode();
+                }
+                if (status == SOLVED) {
+                    return SOLVED;
+                }
+                entering = false;
+            }
+
+            if (status == UNDECIDED) {
+                final Card pickedCard = pickCard();
+                if (pickedCard != null) {
+                    // Going deeper, this card won't be tried again by this frame or any below it
+                    removeAvailable(pickedCard);
+                    addCard(pickedCard);
+                    depth++;
+                    if (depth == frameTrailStarts.length) {
+                        int[] newFrameTrailStarts = new int[depth * 2];
+                        System.arraycopy(frameTrailStarts, 0, newFrameTrailStarts, 0, depth);
+                        frameTrailStarts = newFrameTrailStarts;
+                        int[] newFrameExtraCardFailures = new int[depth * 2];
+                        System.arraycopy(frameExtraCardFailures, 0, newFrameExtraCardFailures, 0, depth);
+                        frameExtraCardFailures = newFrameExtraCardFailures;
+                    }
+                    frameTrailStarts[depth] = trailSize;
+                    frameExtraCardFailures[depth] = extraCardFailures;
+                    entering = true;
+                    continue;
+                }
+                status = RULES_TOO_STRICT;
+            }
+
+            // This frame has failed
+            if (nogoodCache != null && frameExtraCardFailures[depth] == extraCardFailures) {
+                limitTracker.getActiveConditions(activeConditions);
+                nogoodCache.add(classCounts, activeConditions);
+            }
+            if (depth == 0) {
+                return status;
+            }
+            if (statistics != null) {
+                statistics.backtracks++;
+            }
+            restoreAvailable(frameTrailStarts[depth]);
+            removeLastCard();
+            depth--;
+            // Back in the parent frame, which will carry on picking its next card
+            status = UNDECIDED;
+        }
+    }
+
+    /**
+     * Builds the Result from the solution found by {@link #search()}.
+     */
+    Result getResult() {
+        final Result result = new Result();
+        result.getCards().addAll(cards);
+        result.setBaneCard(baneCard);
+        result.setFerrymanExtraCard(ferrymanExtraCard);
+        return result;
+    }
+
+    private int checkNode() {
+        // Check to ensure most recent card added hasn't taken us over any maximum limits
+        if (!limitTracker.maximumsSatisfied()) {
+            if (statistics != null) {
+                statistics.maximumPrunes++;
+            }
+            return UNSATISFIED_RULE;
+        }
+
+        // Check if we have completed the Solution
+        if (drawCount == cardsToDraw) {
+            // We've drawn the correct number of cards, now check our limits
+            if (!limitTracker.isSatisfied()) {
+                return UNSATISFIED_RULE;
+            }
+            return addExtraCards();
+        }
+
+        // The cards left for the Bane and Ferryman extra pile only get fewer from here on, so don't wait for a full draw
+        if (banePool.isEmpty() && chosenCards.contains(data.getCard(Constants.CARD_YOUNG_WITCH))) {
+            extraCardFailures++;
+            return NO_BANE;
+        }
+        if (ferrymanPool.isEmpty() && chosenCards.contains(data.getCard(Constants.CARD_FERRYMAN))) {
+            extraCardFailures++;
+            return NO_FERRYMAN_EXTRA;
+        }
+
+        return propagate();
+    }
+
+    /**
+     * Removes the candidates that would break a maximum, and checks all minimums can still be reached.
+     *
+     * @return UNDECIDED if the search can carry on from here, or the status code for this dead end
+     */
+    private int propagate() {
+        final int remainingDraws = cardsToDraw - drawCount;
+        if (statistics != null) {
+            statistics.limitChecks += limitTracker.size();
+        }
+
+        for (int i = 0; i < limitTracker.size(); i++) {
+            final Limit limit = limitTracker.getLimit(i);
+            final int count = limitTracker.getCount(i);
+
+            if (!limitTracker.appliesTo(i)) {
+                if (count > limit.getMaximum()) {
+                    // Meeting the condition would break the maximum, so stay clear of it
+                    removeCandidates(plan.getLimitConditionCards(i));
+                }
+                continue;
+            }
+
+            if (count >= limit.getMaximum()) {
+                // Limit is full, any more cards from its group would take it over the maximum
+                removeCandidates(limit.getGroup().getCardSet());
+            } else if (count < limit.getMinimum()) {
+                // Cards not counting against the draw can all be added, the others only while there are draws left
+                final int groupCandidates = candidateCards.intersectionSize(limit.getGroup().getCardSet());
+                final int groupDrawCandidates = candidateCards.intersectionSize(plan.getLimitDrawCards(i));
+                final int reachable = groupCandidates - groupDrawCandidates + Math.min(groupDrawCandidates, remainingDraws);
+                if (count + reachable < limit.getMinimum()) {
+                    if (statistics != null) {
+                        statistics.minimumPrunes++;
+                    }
+                    return RULES_TOO_STRICT;
+                }
+            }
+        }
+
+        // Make sure there's enough left to complete the draw at all
+        if (candidateCards.intersectionSize(drawCards) < remainingDraws) {
+            if (statistics != null) {
+                statistics.minimumPrunes++;
+            }
+            return RULES_TOO_STRICT;
+        }
+
+        return UNDECIDED;
+    }
+
+    /**
+     * Pick a Card.<br/>
+     * If we have any minimumLimit, pick from the smallest (first in list) to satisfy it.
+     *
+     * @return the picked card, or null if there is nothing left to pick
+     */
+    private Card pickCard() {
+        // Check to see if there's still a minimumLimit to satisfy
+        final int minimumLimit = limitTracker.firstUnmetMinimum();
+        final IndexedCardPool pickSource = minimumLimit >= 0 ? limitCandidatePools[minimumLimit] : candidatePool;
+        if (statistics != null) {
+            statistics.picks++;
+            statistics.candidatePoolTotal += pickSource.size();
+            statistics.maxCandidatePool = Math.max(statistics.maxCandidatePool, pickSource.size());
+        }
+
+        // Randomise selection from the pool
+        return pickSource.pickRandom(random);
+    }
+
+    /**
+     * Adds the Bane, Ferryman and Prophecy cards the solution needs.<br/>
+     * If any of them can't be found, everything added here is undone again so the search can backtrack.
+     */
+    private int addExtraCards() {
+        final int trailMark = trailSize;
+        final int cardsMark = cards.size();
+
+        // First add the Bane card if needed.
+        long startTime = statistics != null ? System.nanoTime() : 0;
+        int status = addBaneIfNeeded();
+        startTime = countPhase(SolverStatistics.Phase.BANE, startTime);
+        // Also add an extra pile for Ferryman if needed.
+        if (status == SOLVED) {
+            status = addFerrymanExtraIfNeeded();
+            startTime = countPhase(SolverStatistics.Phase.FERRYMAN, startTime);
+        }
+        // Add a Prophecy if needed
+        if (status == SOLVED) {
+            status = addProphecyIfNeeded();
+            countPhase(SolverStatistics.Phase.PROPHECY, startTime);
+        }
+
+        if (status != SOLVED) {
+            if (status == NO_BANE || status == NO_FERRYMAN_EXTRA) {
+                extraCardFailures++;
+            }
+            baneCard = null;
+            ferrymanExtraCard = null;
+            while (cards.size() > cardsMark) {
+                cards.remove(cards.size() - 1);
+            }
+            restoreAvailable(trailMark);
+        }
+        return status;
+    }
+
+    /**
+     * Adds the time since the start time to the phase, if statistics are collected.
+     *
+     * @return the time now, to start the next phase at
+     */
+    private long countPhase(SolverStatistics.Phase phase, long startTime) {
+        if (statistics == null) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        statistics.phaseNanos[phase.ordinal()] += now - startTime;
+        return now;
+    }
+
+    /**
+     * Check the current results to determine if need to pick a Bane
+     */
+    private int addBaneIfNeeded() {
+        // Check if Young Witch is in the selection
+        if (!chosenCards.contains(data.getCard(Constants.CARD_YOUNG_WITCH))) {
+            // Young Witch isn't in selection, don't do anything.
+            return SOLVED;
+        }
+
+        if (banePool.isEmpty()) {
+            return NO_BANE;
+        }
+
+        // Randomise selection from the pool
+        baneCard = banePool.pickRandom(random);
+        cards.add(baneCard);
+        removeAvailable(baneCard);
+        return SOLVED;
+    }
+
+    /**
+     * Check the current results to determine if we need to add a pile for Ferryman
+     */
+    private int addFerrymanExtraIfNeeded() {
+        // Check if Ferryman is in the selection
+        if (!chosenCards.contains(data.getCard(Constants.CARD_FERRYMAN))) {
+            // Ferryman isn't in selection, don't do anything.
+            return SOLVED;
+        }
+
+        if (ferrymanPool.isEmpty()) {
+            return NO_FERRYMAN_EXTRA;
+        }
+
+        // Randomise selection from the pool
+        ferrymanExtraCard = ferrymanPool.pickRandom(random);
+        cards.add(ferrymanExtraCard);
+        removeAvailable(ferrymanExtraCard);
+        return SOLVED;
+    }
+
+    private int addProphecyIfNeeded() {
+        boolean omenExists = false;
+        for (Card card : cards) {
+            if (card.hasType(CardTypes.OMEN)) {
+                omenExists = true;
+                break;
+            }
+        }
+
+        if (omenExists) {
+            if (prophecyPool.isEmpty()) {
+                return NO_PROPHECY;
+            }
+
+            // Randomise selection from the pool
+            cards.add(prophecyPool.pickRandom(random));
+        }
+        return SOLVED;
+    }
+
+    /**
+     * Fills the pools from the candidates and available cards in id order.<br/>
+     * Backtracking leaves the pools in another order, so a reset search fills them again to pick exactly like a new one.
+     */
+    private void fillPools() {
+        candidatePool.clear();
+        for (IndexedCardPool limitCandidatePool : limitCandidatePools) {
+            limitCandidatePool.clear();
+        }
+        banePool.clear();
+        ferrymanPool.clear();
+        for (Card card : candidateCards) {
+            addCandidate(card);
+        }
+        for (Card card : plan.getBaneCards()) {
+            banePool.add(card);
+        }
+        for (Card card : plan.getFerrymanCards()) {
+            ferrymanPool.add(card);
+        }
+    }
+
+    private void addCard(Card card) {
+        cards.add(card);
+        chosenCards.add(card);
+        if (classCounts != null) {
+            classCounts[cardClasses[card.getId()]]++;
+        }
+        limitTracker.add(card);
+        if (card.countsTowardDraw()) {
+            drawCount++;
+        }
+    }
+
+    private void removeLastCard() {
+        final Card card = cards.remove(cards.size() - 1);
+        chosenCards.remove(card);
+        if (classCounts != null) {
+            classCounts[cardClasses[card.getId()]]--;
+        }
+        limitTracker.remove(card);
+        if (card.countsTowardDraw()) {
+            drawCount--;
+        }
+    }
+
+    /**
+     * Removes a card from both the available cards and the candidates
+     */
+    private void removeAvailable(Card card) {
+        int flags = 0;
+        if (availableCards.remove(card)) {
+            banePool.remove(card);
+            ferrymanPool.remove(card);
+            flags |= REMOVED_AVAILABLE;
+        }
+        if (candidateCards.remove(card)) {
+            removeCandidatePools(card);
+            flags |= REMOVED_CANDIDATE;
+        }
+        pushTrail(card, flags);
+    }
+
+    /**
+     * Removes the given cards from the candidates only, they can still be picked for Bane or Ferryman
+     */
+    private void removeCandidates(CardSet cards) {
+        if (!candidateCards.intersects(cards)) {
+            return;
+        }
+        final CardSet removedCards = new CardSet(candidateCards);
+        removedCards.retainAll(cards);
+        candidateCards.removeAll(removedCards);
+        if (statistics != null) {
+            statistics.removedCandidates += removedCards.size();
+        }
+        for (Card card : removedCards) {
+            removeCandidatePools(card);
+            pushTrail(card, REMOVED_CANDIDATE);
+        }
+    }
+
+    /**
+     * Adds a card to the candidates and the pools of candidates
+     */
+    private void addCandidate(Card card) {
+        candidateCards.add(card);
+        candidatePool.add(card);
+        for (int limit : limitTracker.getGroupLimits(card)) {
+            limitCandidatePools[limit].add(card);
+        }
+    }
+
+    private void removeCandidatePools(Card card) {
+        candidatePool.remove(card);
+        for (int limit : limitTracker.getGroupLimits(card)) {
+            limitCandidatePools[limit].remove(card);
+        }
+    }
+
+    private void pushTrail(Card card, int flags) {
+        if (flags == 0) {
+            return;
+        }
+        if (trailSize == trail.length) {
+            int[] newTrail = new int[trailSize * 2];
+            System.arraycopy(trail, 0, newTrail, 0, trailSize);
+            trail = newTrail;
+        }
+        trail[trailSize++] = card.getId() << 2 | flags;
+    }
+
+    /**
+     * Puts back every card removed from availableCards and candidateCards since the trail was the given size
+     */
+    private void restoreAvailable(int trailMark) {
+        while (trailSize > trailMark) {
+            final int entry = trail[--trailSize];
+            final Card card = data.getCard(entry >> 2);
+            if ((entry & REMOVED_AVAILABLE) != 0) {
+                availableCards.add(card);
+                if (plan.getBaneCards().contains(card)) {
+                    banePool.add(card);
+                }
+                if (plan.getFerrymanCards().contains(card)) {
+                    ferrymanPool.add(card);
+                }
+            }
+            if ((entry & REMOVED_CANDIDATE) != 0) {
+                addCandidate(card);
+            }
+        }
+    }
+}
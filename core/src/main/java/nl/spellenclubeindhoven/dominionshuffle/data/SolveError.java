@@ -24,7 +24,24 @@ package nl.spellenclubeindhoven.dominionshuffle.data;
 
 public class SolveError extends Exception {
 	private static final long serialVersionUID = 1L;
-	private int resourceId;
+
+	/**
+	 * Why no kingdom could be generated, for the app to show a message for
+	 */
+	public enum Reason {
+		RULES_TOO_STRICT,
+		OVERCONSTRAINED_MINIMUMS,
+		UNSATISFIED_RULE,
+		TOO_MANY_CARDS,
+		NOT_ENOUGH_CARDS,
+		NO_PROPHECIES_FOUND,
+		REQUIRED_OVER_MAXIMUM,
+		TIMEOUT,
+		CANCELLED,
+		TOO_COMPLEX_TO_COUNT
+	}
+
+	private Reason reason = Reason.RULES_TOO_STRICT;
 
 	public SolveError() {
 		super();
@@ -42,12 +59,12 @@ public class SolveError extends Exception {
 		super(arg0);
 	}
 	
-	public SolveError(int resourceId, String message) {
+	public SolveError(Reason reason, String message) {
 		super(message);
-		this.resourceId = resourceId;
+		this.reason = reason;
 	}
 	
-	public int getResourceId() {
-		return resourceId;
+	public Reason getReason() {
+		return reason;
 	}
 }
@@ -0,0 +1,14 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Gets told how far the searches of a generate have come, every {@link SolutionSearch#PROGRESS_INTERVAL} cards tried.<br/>
+ * It's called from the threads doing the search, possibly more than one at a time, so it should only hand the
+ * numbers over to be shown and return quickly.
+ */
+public interface SolveProgressListener {
+    /**
+     * @param nodes the number of cards tried so far, by all searches together
+     * @param depth the number of cards picked by the search reporting, on top of the required cards
+     */
+    void onProgress(long nodes, int depth);
+}
@@ -0,0 +1,41 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Locale;
+
+
+/**
+ * Thrown when a generate ran out of its time budget, or was cancelled, before it found a kingdom.<br/>
+ * Unlike the other SolveErrors it doesn't mean the rules are impossible, it holds how far the searches got instead.
+ */
+public class SolveTimeout extends SolveError {
+    private static final long serialVersionUID = 1L;
+    final private boolean cancelled;
+    final private long nodes;
+    final private long elapsedNanos;
+
+    public SolveTimeout(boolean cancelled, long nodes, long elapsedNanos) {
+        super(cancelled ? Reason.CANCELLED : Reason.TIMEOUT,
+                String.format(Locale.US, "%s after trying %d cards in %.1f ms", cancelled ? "Cancelled" : "Out of time", nodes, elapsedNanos / 1e6));
+        this.cancelled = cancelled;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return true if the generate was cancelled, false if it ran out of time
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the number of cards tried by all searches together, or the states worked out when counting the kingdoms
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
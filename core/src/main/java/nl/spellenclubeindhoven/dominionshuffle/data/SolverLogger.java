@@ -0,0 +1,9 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+/**
+ * Where a CardSelector writes its debug output, such as the statistics of each generate. The app writes it to
+ * the Android log.
+ */
+public interface SolverLogger {
+    void debug(String tag, String message);
+}
@@ -0,0 +1,244 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * The rules of a CardSelector worked out into everything a SolutionSearch needs that doesn't change while searching:
+ * the cards that can be picked, the Limits with their index of cards, and the cards that can be the Bane or
+ * Ferryman extra pile.<br/>
+ * A plan doesn't change once made, it holds copies of the rules, so any number of searches (also on different threads)
+ * can share one. Changing the rules of the CardSelector afterwards doesn't affect it.
+ */
+class SolverPlan {
+    final private Data data;
+    final private CardSet availableCards;
+    final private CardSet requiredCards;
+    final private CardSet excludedCards;
+    final private List<Limit> limits;
+    final private int cardsToDraw;
+    /**
+     * The Limits with no cards tracked yet, searches copy it rather than building the index of cards again
+     */
+    final private LimitTracker limitTracker;
+    final private SolveError rulesError;
+
+    /**
+     * Cards that count against those drawn
+     */
+    final private CardSet drawCards;
+    /**
+     * For each limit, the cards of its group that count against those drawn
+     */
+    final private CardSet[] limitDrawCards;
+    /**
+     * For each limit, the cards of its condition
+     */
+    final private CardSet[] limitConditionCards;
+    /**
+     * Cards that could be the Bane card, or the Ferryman extra card
+     */
+    final private CardSet baneCards;
+    final private CardSet ferrymanCards;
+    final private CardSet prophecyCards;
+    /**
+     * For each card id, its class of interchangeable cards, worked out when first needed
+     */
+    private int[] cardClasses;
+
+    /**
+     * @param availableCards the cards that can be picked, not including the required cards
+     * @param limits         the limits to satisfy, in the order they should be used to pick cards
+     */
+    SolverPlan(Data data, CardSet availableCards, CardSet requiredCards, CardSet excludedCards, List<Limit> limits, int cardsToDraw) {
+        this.data = data;
+        this.availableCards = new CardSet(availableCards);
+        this.requiredCards = new CardSet(requiredCards);
+        this.excludedCards = new CardSet(excludedCards);
+        final List<Limit> limitCopies = new ArrayList<>();
+        for (Limit limit : limits) {
+            limitCopies.add(new Limit(limit));
+        }
+        this.limits = Collections.unmodifiableList(limitCopies);
+        this.cardsToDraw = cardsToDraw;
+        this.limitTracker = new LimitTracker(this.limits, data.getCardCount());
+
+        drawCards = new CardSet();
+        for (Card card : availableCards) {
+            if (card.countsTowardDraw()) {
+                drawCards.add(card);
+            }
+        }
+        limitDrawCards = new CardSet[this.limits.size()];
+        limitConditionCards = new CardSet[this.limits.size()];
+        for (int i = 0; i < this.limits.size(); i++) {
+            final Limit limit = this.limits.get(i);
+            limitDrawCards[i] = new CardSet(limit.getGroup().getCardSet());
+            limitDrawCards[i].retainAll(drawCards);
+            limitConditionCards[i] = limit.hasCondition() ? new CardSet(limit.getCondition().getCards()) : new CardSet();
+        }
+
+        // Bane and Ferryman extra piles come from the supply, so basic and non-supply cards are left out
+        baneCards = getCardsCosting(data, Constants.GROUP_COST_2, Constants.GROUP_COST_3, 2, 3);
+        baneCards.retainAll(availableCards);
+        removeBasicOrNonSupply(baneCards);
+        ferrymanCards = getCardsCosting(data, Constants.GROUP_COST_3, Constants.GROUP_COST_4, 3, 4);
+        ferrymanCards.retainAll(availableCards);
+        removeBasicOrNonSupply(ferrymanCards);
+
+        prophecyCards = new CardSet(data.getGroup(Constants.GROUP_PROPHECIES).getCardSet());
+        prophecyCards.removeAll(excludedCards);
+
+        rulesError = new RuleAnalyzer(this.availableCards, this.requiredCards, this.limits, cardsToDraw).analyze();
+    }
+
+    /**
+     * Gets the class of every card that can be chosen, cards in the same class being interchangeable.<br/>
+     * Used by the NogoodCache to tell selections apart and by the KingdomCounter to count them.
+     * The classes are only worked out once for the plan, and must not be changed.
+     *
+     * @return for each card id, the number of its class
+     */
+    synchronized int[] getCardClasses() {
+        if (cardClasses == null) {
+            cardClasses = createCardClasses();
+        }
+        return cardClasses;
+    }
+
+    private int[] createCardClasses() {
+        final int[] cardClasses = new int[data.getCardCount()];
+        final Map<List<Object>, Integer> classes = new HashMap<>();
+        for (CardSet cardSet : new CardSet[]{availableCards, requiredCards}) {
+            for (Card card : cardSet) {
+                final List<Object> signature = getClassSignature(card);
+                Integer cardClass = classes.get(signature);
+                if (cardClass == null) {
+                    cardClass = classes.size();
+                    classes.put(signature, cardClass);
+                }
+                cardClasses[card.getId()] = cardClass;
+            }
+        }
+        return cardClasses;
+    }
+
+    /**
+     * Gets everything about the card that matters to the rules, cards with equal signatures are interchangeable.
+     */
+    private List<Object> getClassSignature(Card card) {
+        final String name = card.getName();
+        final boolean special = name.equals(Constants.CARD_YOUNG_WITCH) || name.equals(Constants.CARD_FERRYMAN);
+        return Arrays.<Object>asList(
+                special ? name : null,
+                card.countsTowardDraw(),
+                card.hasType(CardTypes.OMEN),
+                baneCards.contains(card),
+                ferrymanCards.contains(card),
+                Arrays.toString(limitTracker.getGroupLimits(card)),
+                Arrays.toString(limitTracker.getConditionLimits(card)));
+    }
+
+    /**
+     * Gets the cards of the two Cost groups, or when the data has no such groups, the cards to draw costing from the
+     * minimum to the maximum coins and nothing else.<br/>
+     * The groups in the data are curated, e.g. Cost_3 holds a card costing 5, so they are used when there.
+     */
+    private CardSet getCardsCosting(Data data, String lowGroup, String highGroup, int minimumCoins, int maximumCoins) {
+        final Group low = data.getGroup(lowGroup);
+        final Group high = data.getGroup(highGroup);
+        if (low != null && high != null) {
+            final CardSet cards = new CardSet(low.getCardSet());
+            cards.addAll(high.getCardSet());
+            return cards;
+        }
+        final CardSet cards = data.getCardsCosting(Cost.parse(String.valueOf(minimumCoins)),
+                Cost.parse(maximumCoins + "*+"));
+        for (Iterator<Card> i = cards.iterator(); i.hasNext(); ) {
+            if (!i.next().getCostValue().isCoinsOnly()) {
+                i.remove();
+            }
+        }
+        cards.retainAll(drawCards);
+        return cards;
+    }
+
+    private static void removeBasicOrNonSupply(CardSet cardSet) {
+        for (Iterator<Card> i = cardSet.iterator(); i.hasNext(); ) {
+            if (i.next().isBasicOrNonSupply()) {
+                i.remove();
+            }
+        }
+    }
+
+    Data getData() {
+        return data;
+    }
+
+    CardSet getAvailableCards() {
+        return availableCards;
+    }
+
+    CardSet getRequiredCards() {
+        return requiredCards;
+    }
+
+    CardSet getExcludedCards() {
+        return excludedCards;
+    }
+
+    List<Limit> getLimits() {
+        return limits;
+    }
+
+    int getCardsToDraw() {
+        return cardsToDraw;
+    }
+
+    /**
+     * Gets a new LimitTracker for the limits, with no cards tracked yet.
+     */
+    LimitTracker createLimitTracker() {
+        return new LimitTracker(limitTracker);
+    }
+
+    /**
+     * Gets the problem with the rules the RuleAnalyzer found, if any.
+     *
+     * @return the problem, or null if the rules may have a solution
+     */
+    SolveError getRulesError() {
+        return rulesError;
+    }
+
+    CardSet getDrawCards() {
+        return drawCards;
+    }
+
+    CardSet getLimitDrawCards(int limit) {
+        return limitDrawCards[limit];
+    }
+
+    CardSet getLimitConditionCards(int limit) {
+        return limitConditionCards[limit];
+    }
+
+    CardSet getBaneCards() {
+        return baneCards;
+    }
+
+    CardSet getFerrymanCards() {
+        return ferrymanCards;
+    }
+
+    CardSet getProphecyCards() {
+        return prophecyCards;
+    }
+}
@@ -0,0 +1,194 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Locale;
+
+/**
+ * Counts of the work done generating kingdoms, collected by {@link CardSelector#setStatisticsEnabled(boolean)}.<br/>
+ * Every search counts into its own statistics without locking, which are added to those of the CardSelector once
+ * the search is done. With statistics disabled the searches have none, and only check for that, so they cost
+ * nothing besides.
+ */
+public class SolverStatistics {
+    /**
+     * The parts of generating a kingdom that are timed
+     */
+    public enum Phase {
+        /**
+         * Picking the cards to draw, including the Bane, Ferryman and Prophecy cards below
+         */
+        SEARCH,
+        BANE,
+        FERRYMAN,
+        PROPHECY,
+        COLONY_SHELTER,
+        OBELISK,
+        TRAITS,
+        ALLY
+    }
+
+    int kingdoms;
+    long nodes;
+    long backtracks;
+    long nogoodHits;
+    long nogoodMisses;
+    long nogoodEvictions;
+    long limitChecks;
+    long maximumPrunes;
+    long minimumPrunes;
+    long removedCandidates;
+    long picks;
+    long candidatePoolTotal;
+    int maxCandidatePool;
+    int maxDepth;
+    final long[] phaseNanos = new long[Phase.values().length];
+
+    public SolverStatistics() {
+    }
+
+    public SolverStatistics(SolverStatistics original) {
+        synchronized (original) {
+            add(original);
+        }
+    }
+
+    /**
+     * @return the number of kingdoms generated
+     */
+    public int getKingdoms() {
+        return kingdoms;
+    }
+
+    /**
+     * @return the number of frames entered by the searches, each frame being a selection of cards tried
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of frames that failed and were left again
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return the number of frames abandoned because the NogoodCache knew them to fail
+     */
+    public long getNogoodHits() {
+        return nogoodHits;
+    }
+
+    /**
+     * @return the number of frames the NogoodCache was checked for without knowing them
+     */
+    public long getNogoodMisses() {
+        return nogoodMisses;
+    }
+
+    /**
+     * @return the number of failed selections the NogoodCache dropped again to make room for newer ones
+     */
+    public long getNogoodEvictions() {
+        return nogoodEvictions;
+    }
+
+    /**
+     * @return the number of times a Limit was checked while propagating
+     */
+    public long getLimitChecks() {
+        return limitChecks;
+    }
+
+    /**
+     * @return the number of frames abandoned for going over a maximum
+     */
+    public long getMaximumPrunes() {
+        return maximumPrunes;
+    }
+
+    /**
+     * @return the number of frames abandoned because a minimum, or the draw, could no longer be reached
+     */
+    public long getMinimumPrunes() {
+        return minimumPrunes;
+    }
+
+    /**
+     * @return the number of candidates removed for breaking a maximum when added
+     */
+    public long getRemovedCandidates() {
+        return removedCandidates;
+    }
+
+    /**
+     * @return the number of cards picked to try
+     */
+    public long getPicks() {
+        return picks;
+    }
+
+    /**
+     * @return the average number of candidates a card was picked from
+     */
+    public double getAverageCandidatePool() {
+        return picks == 0 ? 0 : (double) candidatePoolTotal / picks;
+    }
+
+    public int getMaxCandidatePool() {
+        return maxCandidatePool;
+    }
+
+    /**
+     * @return the most cards picked on top of the required cards at once
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    synchronized void add(SolverStatistics other) {
+        kingdoms += other.kingdoms;
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        nogoodHits += other.nogoodHits;
+        nogoodMisses += other.nogoodMisses;
+        nogoodEvictions += other.nogoodEvictions;
+        limitChecks += other.limitChecks;
+        maximumPrunes += other.maximumPrunes;
+        minimumPrunes += other.minimumPrunes;
+        removedCandidates += other.removedCandidates;
+        picks += other.picks;
+        candidatePoolTotal += other.candidatePoolTotal;
+        maxCandidatePool = Math.max(maxCandidatePool, other.maxCandidatePool);
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] += other.phaseNanos[i];
+        }
+    }
+
+    synchronized void addPhaseNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    synchronized void addKingdom() {
+        kingdoms++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "%d kingdoms, %d nodes, %d backtracks, %d nogood hits, %d nogood misses, %d nogood evictions, %d limit checks, "
+                        + "%d maximum prunes, %d minimum prunes, %d removed candidates, %d picks from %.1f candidates on average "
+                        + "(at most %d), depth %d",
+                kingdoms, nodes, backtracks, nogoodHits, nogoodMisses, nogoodEvictions, limitChecks, maximumPrunes, minimumPrunes,
+                removedCandidates, picks, getAverageCandidatePool(), maxCandidatePool, maxDepth));
+        for (Phase phase : Phase.values()) {
+            text.append(String.format(Locale.US, ", %s %.2f ms", phase.name().toLowerCase(Locale.US), getPhaseNanos(phase) / 1e6));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import java.util.Random;
+
+/**
+ * Random number generator giving the same numbers for the same seed on every device and Java version.<br/>
+ * Each number is the seed, advanced by a fixed step, put through a mixing function, so the numbers only depend on the
+ * seed and how many came before. {@link #split()} makes an independent generator for another thread or search, so
+ * nothing needs to be shared between them.
+ * <p>
+ * Unlike java.util.Random, a SplitMix64 must not be used from more than one thread at a time.
+ */
+public class SplitMix64 extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        // Also called by the constructor of Random, before our own constructor sets the state
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Makes a new generator, seeded from this one, whose numbers are independent of the numbers of this one.
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(nextLong());
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads every bit of the input over the whole output
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,15 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchStatisticsTest {
+    @Test
+    public void writesOneThreadAndKingdomWithoutPlural() {
+        assertEquals("1 kingdom on 1 thread in 2.0 ms, 500.0 kingdoms/s",
+                new BatchStatistics(1, 1, 2000000).toString());
+        assertEquals("10 kingdoms on 4 threads in 5.0 ms, 2000.0 kingdoms/s",
+                new BatchStatistics(10, 4, 5000000).toString());
+    }
+}
@@ -0,0 +1,232 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Generates kingdoms of 5 from 24 Actions: Low (costing 2 and 3) and High (costing 4 and 5) hold 12 each, and every
+ * third card is an Attack.
+ */
+public class CardSelectorTest {
+    private static final int CARDS_TO_DRAW = 5;
+
+    private Data data;
+    private CardSelector cardSelector;
+
+    @Before
+    public void setUp() {
+        data = createData();
+        cardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 2);
+        cardSelector.setLimitMinimum(data.getGroup("High"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+    }
+
+    /**
+     * The kingdom of every seed in a batch is the one generate gives for that seed, on any number of threads.
+     */
+    @Test
+    public void generatesTheSameBatchAsOneKingdomAtATime() throws SolveError {
+        final SplitMix64 seeds = new SplitMix64(42);
+        final Map<Long, List<Card>> expected = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            final long seed = seeds.nextLong();
+            expected.put(seed, cardSelector.generate(data, seed).getCards());
+        }
+
+        for (int threads : new int[]{1, 3}) {
+            cardSelector.setParallelSearches(threads);
+            final Map<Long, List<Card>> batch = new HashMap<>();
+            final BatchStatistics statistics = cardSelector.generateBatch(data, 40, 42, result -> {
+                if (batch.put(result.getSeed(), result.getCards()) != null) {
+                    fail("Seed handed out twice: " + result.getSeed());
+                }
+            });
+            assertEquals("threads " + threads, expected, batch);
+            assertEquals(40, statistics.getCount());
+            assertEquals(threads, statistics.getThreads());
+        }
+    }
+
+    @Test
+    public void handsOutNothingForRulesWithoutKingdom() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 4);
+        cardSelector.setLimitMinimum(data.getGroup("High"), 4);
+        final List<Result> results = new ArrayList<>();
+        try {
+            cardSelector.generateBatch(data, 10, 1, results::add);
+            fail("Generated a batch for rules without kingdom");
+        } catch (SolveError e) {
+            assertTrue(results.isEmpty());
+        }
+    }
+
+    @Test
+    public void returnsAKingdomForEverySeedOfTheBatch() throws SolveError {
+        cardSelector.setParallelSearches(1);
+        final List<Result> results = cardSelector.generateBatch(data, 20);
+
+        assertEquals(20, results.size());
+        final List<Long> seeds = new ArrayList<>();
+        for (Result result : results) {
+            assertEquals(CARDS_TO_DRAW, result.getCards().size());
+            seeds.add(result.getSeed());
+        }
+        assertEquals(20, new HashSet<>(seeds).size());
+    }
+
+    @Test
+    public void generatesTheSameKingdomForASeedOnAnyNumberOfThreads() throws SolveError {
+        final List<List<Card>> alone = new ArrayList<>();
+        cardSelector.setParallelSearches(1);
+        for (long seed = 0; seed < 100; seed++) {
+            alone.add(cardSelector.generate(data, seed).getCards());
+        }
+
+        cardSelector.setParallelSearches(4);
+        for (long seed = 0; seed < 100; seed++) {
+            assertEquals("seed " + seed, alone.get((int) seed), cardSelector.generate(data, seed).getCards());
+        }
+    }
+
+    /**
+     * The kingdom doesn't depend on the order sets of cards happen to iterate in, so the same data read again, e.g. on
+     * another device, gives the same kingdom for the seed.
+     */
+    @Test
+    public void generatesTheSameKingdomFromDataReadAgain() throws SolveError {
+        final Result result = cardSelector.generate(data);
+        final Data dataAgain = createData();
+        final CardSelector cardSelectorAgain = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        cardSelectorAgain.fromJson(cardSelector.toJson(), dataAgain);
+
+        final List<String> names = new ArrayList<>();
+        for (Card card : cardSelectorAgain.generate(dataAgain, result.getSeed()).getCards()) {
+            names.add(card.getName());
+        }
+        final List<String> expected = new ArrayList<>();
+        for (Card card : result.getCards()) {
+            expected.add(card.getName());
+        }
+        assertEquals(expected, names);
+    }
+
+    @Test
+    public void stopsACancelledSearch() throws SolveError {
+        final CancellationToken cancellation = new CancellationToken();
+        cancellation.cancel();
+        try {
+            cardSelector.generate(data, 10000, cancellation, null);
+            fail("Generated after cancel");
+        } catch (SolveTimeout e) {
+            assertEquals(SolveError.Reason.CANCELLED, e.getReason());
+        }
+
+        // Nothing is left behind, the next generate carries on as usual
+        assertEquals(CARDS_TO_DRAW, cardSelector.generate(data, 10000, new CancellationToken(), null).getCards().size());
+    }
+
+    /**
+     * With equal chances the kingdoms are counted first, which already runs out of a budget of nothing.
+     */
+    @Test
+    public void timesOutCountingForEqualChances() throws SolveError {
+        final CardSelector uniformSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, true));
+        uniformSelector.fromJson(cardSelector.toJson(), data);
+        try {
+            uniformSelector.generate(data, 0, null, null);
+            fail("Counted without any time");
+        } catch (SolveTimeout e) {
+            assertEquals(SolveError.Reason.TIMEOUT, e.getReason());
+        }
+
+        // Counting can be tried again with more time
+        final Result result = uniformSelector.generate(data, 10000, null, null);
+        for (Limit limit : uniformSelector.getRuleSnapshot().getPlan(data, CARDS_TO_DRAW).getLimits()) {
+            assertTrue(limit.isSatisfied(result.getCards()));
+        }
+    }
+
+    /**
+     * Without Attacks, the 8 other Low cards make 56 kingdoms of 5, and the iterator hands out each of them once.
+     */
+    @Test
+    public void iteratesOverEveryKingdomOnce() throws SolveError {
+        useLowWithoutAttacks();
+        final Set<List<Card>> kingdoms = new HashSet<>();
+        for (KingdomIterator i = cardSelector.kingdomIterator(data, Long.MAX_VALUE); i.hasNext(); ) {
+            assertTrue(kingdoms.add(sorted(i.next().getCards())));
+        }
+
+        assertEquals(56, kingdoms.size());
+    }
+
+    @Test
+    public void stopsIteratingAtTheLimit() throws SolveError {
+        useLowWithoutAttacks();
+        final KingdomIterator iterator = cardSelector.kingdomIterator(data, 10);
+        final Set<List<Card>> kingdoms = new HashSet<>();
+        while (iterator.hasNext()) {
+            kingdoms.add(sorted(iterator.next().getCards()));
+        }
+
+        assertEquals(10, kingdoms.size());
+    }
+
+    @Test
+    public void streamsDistinctKingdomsInParallel() throws SolveError {
+        useLowWithoutAttacks();
+        final List<List<Card>> all = StreamSupport.stream(cardSelector.kingdomSpliterator(data, Long.MAX_VALUE), true)
+                .map(result -> sorted(result.getCards()))
+                .collect(Collectors.toList());
+        final List<List<Card>> some = StreamSupport.stream(cardSelector.kingdomSpliterator(data, 30), true)
+                .map(result -> sorted(result.getCards()))
+                .collect(Collectors.toList());
+
+        assertEquals(56, all.size());
+        assertEquals(56, new HashSet<>(all).size());
+        assertEquals(30, some.size());
+        assertEquals(30, new HashSet<>(some).size());
+    }
+
+    private void useLowWithoutAttacks() {
+        cardSelector.clear();
+        cardSelector.addIncludedGroup(data.getGroup("Low"));
+        cardSelector.addExcludedGroup(data.getGroup("Attacks"));
+    }
+
+    private static Data createData() {
+        final TestData testData = new TestData();
+        for (int i = 0; i < 24; i++) {
+            final String name = "Card" + i;
+            if (i % 3 == 0) {
+                testData.card(name, String.valueOf(2 + i / 6), "Action", "Attack").group("Attacks", name);
+            } else {
+                testData.card(name, String.valueOf(2 + i / 6), "Action");
+            }
+            testData.group(i < 12 ? "Low" : "High", name);
+        }
+        return testData.build();
+    }
+
+    private static List<Card> sorted(List<Card> cards) {
+        final List<Card> sorted = new ArrayList<>(cards);
+        Collections.sort(sorted, (card1, card2) -> card1.getId() - card2.getId());
+        return sorted;
+    }
+}
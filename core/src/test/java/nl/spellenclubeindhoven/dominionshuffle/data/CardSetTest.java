@@ -0,0 +1,165 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks CardSets against HashSets doing the same, on 150 Cards so the ids span three words.
+ */
+public class CardSetTest {
+    private List<Card> cards;
+    private Card[] universe;
+
+    @Before
+    public void setUp() {
+        cards = new ArrayList<>();
+        universe = new Card[150];
+        for (int id = 0; id < universe.length; id++) {
+            universe[id] = new Card(id, "Card" + id, "Test", "2", Collections.singletonList("Action"), false);
+            cards.add(universe[id]);
+        }
+    }
+
+    @Test
+    public void actsLikeAHashSet() {
+        final Random random = new Random(11);
+        final CardSet cardSet = new CardSet(universe);
+        final Set<Card> hashSet = new HashSet<>();
+        for (int step = 0; step < 3000; step++) {
+            final Card card = cards.get(random.nextInt(cards.size()));
+            if (random.nextBoolean()) {
+                assertEquals(hashSet.add(card), cardSet.add(card));
+            } else {
+                assertEquals(hashSet.remove(card), cardSet.remove(card));
+            }
+            assertEquals(hashSet.size(), cardSet.size());
+            assertEquals(hashSet.isEmpty(), cardSet.isEmpty());
+            assertEquals(hashSet.contains(card), cardSet.contains(card));
+        }
+        assertEquals(hashSet, cardSet);
+    }
+
+    @Test
+    public void iteratesInIdOrder() {
+        final CardSet cardSet = new CardSet();
+        for (int id : new int[]{130, 3, 64, 63, 0, 149}) {
+            cardSet.add(cards.get(id));
+        }
+
+        final List<Integer> ids = new ArrayList<>();
+        for (Card card : cardSet) {
+            ids.add(card.getId());
+        }
+        assertEquals("[0, 3, 63, 64, 130, 149]", ids.toString());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals((int) ids.get(i), cardSet.get(i).getId());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void hasNoCardPastItsSize() {
+        final CardSet cardSet = new CardSet(universe);
+        cardSet.add(cards.get(5));
+        cardSet.get(1);
+    }
+
+    @Test
+    public void removesThroughTheIterator() {
+        final CardSet cardSet = new CardSet(cards);
+        for (Iterator<Card> i = cardSet.iterator(); i.hasNext(); ) {
+            if (i.next().getId() % 2 == 1) {
+                i.remove();
+            }
+        }
+
+        assertEquals(75, cardSet.size());
+        for (Card card : cardSet) {
+            assertEquals(0, card.getId() % 2);
+        }
+    }
+
+    @Test
+    public void combinesWithOtherSetsLikeAHashSet() {
+        final Random random = new Random(12);
+        for (int round = 0; round < 50; round++) {
+            final CardSet first = randomSet(random);
+            final CardSet second = randomSet(random);
+            final Set<Card> expected = new HashSet<>(first);
+            expected.retainAll(new HashSet<>(second));
+
+            assertEquals(expected.size(), first.intersectionSize(second));
+            assertEquals(!expected.isEmpty(), first.intersects(second));
+
+            final CardSet retained = new CardSet(first);
+            retained.retainAll(second);
+            assertEquals(expected, retained);
+            // A plain collection goes the slow way, with the same outcome
+            final CardSet retainedList = new CardSet(first);
+            retainedList.retainAll(new ArrayList<>(second));
+            assertEquals(expected, retainedList);
+
+            final CardSet union = new CardSet(first);
+            union.addAll(second);
+            final Set<Card> expectedUnion = new HashSet<>(first);
+            expectedUnion.addAll(second);
+            assertEquals(expectedUnion, union);
+
+            final CardSet difference = new CardSet(first);
+            difference.removeAll(second);
+            final Set<Card> expectedDifference = new HashSet<>(first);
+            expectedDifference.removeAll(second);
+            assertEquals(expectedDifference, difference);
+        }
+    }
+
+    @Test
+    public void copiesDoNotShareTheirCards() {
+        final CardSet original = new CardSet(universe);
+        original.add(cards.get(1));
+        final CardSet copy = new CardSet(original);
+        copy.add(cards.get(100));
+        copy.remove(cards.get(1));
+
+        assertTrue(original.contains(cards.get(1)));
+        assertFalse(original.contains(cards.get(100)));
+        assertEquals(1, original.size());
+    }
+
+    /**
+     * The smaller set runs out of words first, which must count as having no Cards there.
+     */
+    @Test
+    public void handlesSetsOfDifferentLengths() {
+        final CardSet small = new CardSet();
+        small.add(cards.get(2));
+        final CardSet large = new CardSet();
+        large.add(cards.get(2));
+        large.add(cards.get(140));
+
+        assertEquals(1, small.intersectionSize(large));
+        assertEquals(1, large.intersectionSize(small));
+        large.retainAll(small);
+        assertEquals(Collections.singleton(cards.get(2)), large);
+    }
+
+    private CardSet randomSet(Random random) {
+        final CardSet cardSet = new CardSet();
+        final int size = random.nextInt(40);
+        for (int i = 0; i < size; i++) {
+            cardSet.add(cards.get(random.nextInt(random.nextBoolean() ? 70 : cards.size())));
+        }
+        return cardSet;
+    }
+}
@@ -0,0 +1,181 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Finds conflicts in rules on 16 Actions drawing 5: Low and High hold 8 each, every fourth card is an Attack and
+ * every other card is Odd.
+ */
+public class ConflictFinderTest {
+    private static final int CARDS_TO_DRAW = 5;
+    private static final long BUDGET_MILLIS = 5000;
+
+    private Data data;
+    private CardSelector cardSelector;
+
+    @Before
+    public void setUp() {
+        final TestData testData = new TestData();
+        for (int i = 0; i < 16; i++) {
+            final String name = "Card" + i;
+            if (i % 4 == 0) {
+                testData.card(name, "3", "Action", "Attack").group("Attacks", name);
+            } else {
+                testData.card(name, "4", "Action");
+            }
+            testData.group(i < 8 ? "Low" : "High", name);
+            if (i % 2 == 1) {
+                testData.group("Odd", name);
+            }
+        }
+        data = testData.build();
+        cardSelector = createCardSelector();
+    }
+
+    @Test
+    public void findsNoConflictInRulesThatCanBeMet() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+
+        assertNull(cardSelector.findConflict(data, BUDGET_MILLIS));
+    }
+
+    @Test
+    public void leavesOutTheRulesThatDoNotTakePart() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 3);
+        cardSelector.setLimitMinimum(data.getGroup("High"), 3);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 2);
+        cardSelector.addRequiredCard(data.getCard("Card1"));
+        cardSelector.addExcludedCard(data.getCard("Card15"));
+
+        final Set<String> conflict = new HashSet<>(describe(cardSelector.findConflict(data, BUDGET_MILLIS)));
+        assertEquals(new HashSet<>(Arrays.asList("Low min 3", "High min 3")), conflict);
+    }
+
+    @Test
+    public void findsRequiredCardsOverAMaximum() {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.setLimitMinimum(data.getGroup("Odd"), 1);
+        cardSelector.addRequiredCard(data.getCard("Card0"));
+        cardSelector.addRequiredCard(data.getCard("Card4"));
+        cardSelector.addRequiredCard(data.getCard("Card5"));
+
+        final Set<String> conflict = new HashSet<>(describe(cardSelector.findConflict(data, BUDGET_MILLIS)));
+        assertEquals(3, conflict.size());
+        assertTrue(conflict.contains("Card0 required"));
+        assertTrue(conflict.contains("Card4 required"));
+        assertTrue(conflict.contains("Attacks max 1"));
+    }
+
+    /**
+     * Tries random rules, and checks every conflict found can't be met while leaving out any one of its rules can.
+     */
+    @Test
+    public void findsMinimalConflicts() {
+        final String[] groups = {"Low", "High", "Attacks", "Odd"};
+        final Random random = new Random(41);
+        int conflicts = 0;
+        for (int round = 0; round < 150; round++) {
+            cardSelector = createCardSelector();
+            for (String group : groups) {
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMinimum(data.getGroup(group), random.nextInt(5));
+                }
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMaximum(data.getGroup(group), 1 + random.nextInt(3));
+                }
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                cardSelector.addRequiredCard(data.getCard("Card" + random.nextInt(16)));
+            }
+            for (int i = random.nextInt(4); i > 0; i--) {
+                cardSelector.addExcludedCard(data.getCard("Card" + random.nextInt(16)));
+            }
+
+            final List<ConflictingRule> conflict = cardSelector.findConflict(data, BUDGET_MILLIS);
+            if (conflict == null) {
+                assertTrue(isSatisfiable(cardSelector));
+                continue;
+            }
+            conflicts++;
+            assertFalse(describe(conflict) + " can be met", isSatisfiable(conflict, -1));
+            for (int i = 0; i < conflict.size(); i++) {
+                assertTrue(describe(conflict) + " without " + conflict.get(i) + " can't be met", isSatisfiable(conflict, i));
+            }
+        }
+        assertTrue("conflicts " + conflicts, conflicts > 10);
+    }
+
+    private CardSelector createCardSelector() {
+        final CardSelector selector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        selector.addIncludedGroup(data.getGroup("All"));
+        return selector;
+    }
+
+    /**
+     * Checks if the rules can be met, leaving out the rule at the index.
+     */
+    private boolean isSatisfiable(List<ConflictingRule> rules, int leftOut) {
+        final CardSelector selector = createCardSelector();
+        for (int i = 0; i < rules.size(); i++) {
+            if (i == leftOut) {
+                continue;
+            }
+            final ConflictingRule rule = rules.get(i);
+            switch (rule.getKind()) {
+                case LIMIT:
+                    final Group group = (Group) rule.getGroupOrCard();
+                    selector.setLimitMinimum(group, rule.getLimit().getMinimum());
+                    if (rule.getLimit().getMaximum() != Integer.MAX_VALUE) {
+                        selector.setLimitMaximum(group, rule.getLimit().getMaximum());
+                    }
+                    selector.setCondition(group, rule.getLimit().getCondition());
+                    break;
+                case REQUIRED_CARD:
+                    selector.addRequiredCard((Card) rule.getGroupOrCard());
+                    break;
+                case EXCLUDED_GROUP:
+                    selector.addExcludedGroup((Group) rule.getGroupOrCard());
+                    break;
+                case EXCLUDED_CARD:
+                    selector.addExcludedCard((Card) rule.getGroupOrCard());
+                    break;
+            }
+        }
+        return isSatisfiable(selector);
+    }
+
+    /**
+     * Checks with a search going through every option, after the quick checks.
+     */
+    private boolean isSatisfiable(CardSelector selector) {
+        if (selector.checkRules(data) != null) {
+            return false;
+        }
+        final SolverPlan plan = selector.getRuleSnapshot().getPlan(data, CARDS_TO_DRAW);
+        return new SolutionSearch(plan, new Random(0)).search() == SolutionSearch.SOLVED;
+    }
+
+    private static List<String> describe(List<ConflictingRule> conflict) {
+        assertNotNull(conflict);
+        final List<String> rules = new ArrayList<>();
+        for (ConflictingRule rule : conflict) {
+            rules.add(rule.toString());
+        }
+        return rules;
+    }
+}
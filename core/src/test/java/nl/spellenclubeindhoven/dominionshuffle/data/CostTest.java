@@ -0,0 +1,110 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CostTest {
+    @Test
+    public void parsesEveryPartOfTheCost() {
+        final Cost cost = Cost.parse("P4D3*+");
+        assertEquals(4, cost.getCoins());
+        assertEquals(3, cost.getDebt());
+        assertEquals(1, cost.getPotions());
+        assertTrue(cost.hasCoins());
+        assertTrue(cost.isStar());
+        assertTrue(cost.isPlus());
+        assertFalse(cost.isCoinsOnly());
+
+        final Cost debt = Cost.parse("D8");
+        assertFalse(debt.hasCoins());
+        assertEquals(8, debt.getDebt());
+        assertNull(debt.getCoinsText());
+        assertEquals("5*", Cost.parse("5*").getCoinsText());
+    }
+
+    @Test
+    public void writesTheCostAsItWasRead() {
+        for (String text : new String[]{"4", "P3", "4D3", "D8", "5*", "2+", "PP6", "10"}) {
+            assertEquals(text, Cost.parse(text).toString());
+            assertEquals(Cost.parse(text), Cost.parse(text));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownCharacters() {
+        Cost.parse("4X");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCoinsThatDoNotFit() {
+        Cost.parse("256");
+    }
+
+    @Test
+    public void ordersByCoinsThenDebtThenPotions() {
+        final List<String> expected = Arrays.asList("D8", "2", "2+", "P2", "2D1", "3", "P3", "9", "10");
+        final List<Cost> costs = new ArrayList<>();
+        for (String text : expected) {
+            costs.add(Cost.parse(text));
+        }
+        Collections.shuffle(costs, new Random(1));
+        Collections.sort(costs);
+
+        final List<String> sorted = new ArrayList<>();
+        for (Cost cost : costs) {
+            sorted.add(cost.toString());
+        }
+        assertEquals(expected, sorted);
+    }
+
+    @Test
+    public void filtersCardsByCostRange() {
+        final Data data = new TestData()
+                .card("Two", "2", "Action").card("TwoPotion", "P2", "Action").card("Three", "3+", "Action")
+                .card("ThreePotion", "P3", "Action").card("Four", "4", "Action").card("Debt", "D8", "Action")
+                .build();
+
+        assertEquals(cards(data, "Two", "TwoPotion", "Three"),
+                new HashSet<>(data.getCardsCosting(Cost.parse("2"), Cost.parse("3*+"))));
+        assertEquals(cards(data, "Debt"), new HashSet<>(data.getCardsCosting(Cost.parse("D0"), Cost.parse("D99"))));
+    }
+
+    /**
+     * Without the Cost groups in the data, the Bane and Ferryman come from the cards costing only coins.
+     */
+    @Test
+    public void picksTheBaneByPrintedCostWithoutCostGroups() {
+        final Data data = new TestData()
+                .card("Two", "2", "Action").card("TwoPotion", "P2", "Action").card("Three", "3", "Action")
+                .card("Four", "4", "Action").card("Five", "5", "Action").card("Event", "3", "Event")
+                .without(Constants.GROUP_COST_2).without(Constants.GROUP_COST_3).without(Constants.GROUP_COST_4)
+                .build();
+        final CardSelector cardSelector = new CardSelector(new FixedSettings(3, false));
+        cardSelector.addIncludedGroup(data.getGroup(Constants.GROUP_ALL));
+        final SolverPlan plan = cardSelector.getRuleSnapshot().getPlan(data, 3);
+
+        assertEquals(cards(data, "Two", "Three"), new HashSet<>(plan.getBaneCards()));
+        assertEquals(cards(data, "Three", "Four"), new HashSet<>(plan.getFerrymanCards()));
+    }
+
+    private static HashSet<Card> cards(Data data, String... names) {
+        final HashSet<Card> cards = new HashSet<>();
+        for (String name : names) {
+            cards.add(data.getCard(name));
+        }
+        return cards;
+    }
+}
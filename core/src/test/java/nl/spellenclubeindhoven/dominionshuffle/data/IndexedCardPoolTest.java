@@ -0,0 +1,97 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedCardPoolTest {
+    private List<Card> cards;
+
+    @Before
+    public void setUp() {
+        cards = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            cards.add(new Card(id, "Card" + id, "Test", "2", Collections.singletonList("Action"), false));
+        }
+    }
+
+    @Test
+    public void actsLikeASet() {
+        final Random random = new Random(21);
+        // Starts too small, so it has to grow
+        final IndexedCardPool pool = new IndexedCardPool(4);
+        final Set<Card> expected = new HashSet<>();
+        for (int step = 0; step < 3000; step++) {
+            final Card card = cards.get(random.nextInt(cards.size()));
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(card), pool.add(card));
+            } else {
+                assertEquals(expected.remove(card), pool.remove(card));
+            }
+            assertEquals(expected.size(), pool.size());
+            assertEquals(expected.contains(card), pool.contains(card));
+        }
+
+        final Set<Card> inPool = new HashSet<>();
+        for (int i = 0; i < pool.size(); i++) {
+            inPool.add(pool.get(i));
+        }
+        assertEquals(expected, inPool);
+    }
+
+    @Test
+    public void picksNothingWhenEmpty() {
+        final IndexedCardPool pool = new IndexedCardPool(cards.subList(0, 3));
+        assertEquals(3, pool.size());
+        pool.clear();
+
+        assertTrue(pool.isEmpty());
+        assertFalse(pool.contains(cards.get(0)));
+        assertNull(pool.pickRandom(new Random(1)));
+        // Cleared cards can be added again
+        assertTrue(pool.add(cards.get(0)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void hasNoCardPastItsSize() {
+        new IndexedCardPool(cards.subList(0, 3)).get(3);
+    }
+
+    /**
+     * Picks 10000 times from 10 Cards, after removing and adding some to move them around, and checks the counts
+     * with a chi-square test.
+     */
+    @Test
+    public void picksEveryCardWithTheSameChance() {
+        final IndexedCardPool pool = new IndexedCardPool(cards.subList(0, 10));
+        pool.remove(cards.get(2));
+        pool.remove(cards.get(7));
+        pool.add(cards.get(7));
+        pool.add(cards.get(2));
+
+        final Random random = new Random(22);
+        final int[] counts = new int[10];
+        final int samples = 10000;
+        for (int i = 0; i < samples; i++) {
+            counts[pool.pickRandom(random).getId()]++;
+        }
+        final double expected = samples / 10.0;
+        double chiSquare = 0;
+        for (int count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        // The 99.9th percentile of the chi-square distribution with 9 degrees of freedom
+        assertFalse("chi-square " + chiSquare, chiSquare > 27.88);
+    }
+}
@@ -0,0 +1,232 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the KingdomCounter against every kingdom of a small set of cards, found by trying every subset of them.<br/>
+ * Six Actions (A to F, with A and B Attacks) and three Events (X, Y, Z), with three cards to draw.
+ */
+public class KingdomCounterTest {
+    private static final int CARDS_TO_DRAW = 3;
+
+    private Data data;
+    private CardSelector cardSelector;
+    private CardSelector searchingCardSelector;
+
+    @Before
+    public void setUp() {
+        data = new TestData()
+                .card("A", "2", "Action", "Attack").card("B", "3", "Action", "Attack").card("C", "3", "Action")
+                .card("D", "4", "Action").card("E", "5", "Action").card("F", "6", "Action")
+                .card("X", "2", "Event").card("Y", "4", "Event").card("Z", "6", "Event")
+                .group("Attacks", "A", "B").group("Events", "X", "Y", "Z").group("Twos", "A", "X")
+                .group("Cost_2", "A").group("Cost_3", "B", "C").group("Cost_4", "D")
+                .build();
+        cardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, true));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+        searchingCardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        searchingCardSelector.addIncludedGroup(data.getGroup("All"));
+    }
+
+    @Test
+    public void countsKingdomsWithinMaximums() throws SolveError {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+
+        final Set<String> kingdoms = enumerate(1, 0, 0);
+        assertEquals(16, kingdoms.size());
+        assertEquals(BigInteger.valueOf(kingdoms.size()), cardSelector.countKingdoms(data));
+    }
+
+    @Test
+    public void leavesOutEventsNoLimitAsksFor() throws SolveError {
+        assertEquals(BigInteger.valueOf(enumerate(CARDS_TO_DRAW, 0, 0).size()), cardSelector.countKingdoms(data));
+        for (long seed = 0; seed < 100; seed++) {
+            for (Card card : cardSelector.generate(data, seed).getCards()) {
+                assertTrue(card.countsTowardDraw());
+            }
+        }
+    }
+
+    /**
+     * A maximum alone doesn't ask for Events, or nearly every kingdom would have as many as the maximum allows.
+     */
+    @Test
+    public void leavesOutEventsWithOnlyAMaximum() throws SolveError {
+        cardSelector.setLimitMaximum(data.getGroup("Events"), 2);
+
+        assertEquals(BigInteger.valueOf(enumerate(CARDS_TO_DRAW, 0, 0).size()), cardSelector.countKingdoms(data));
+    }
+
+    @Test
+    public void takesEventsWithoutMaximumUpToTheMinimum() throws SolveError {
+        cardSelector.setLimitMinimum(data.getGroup("Events"), 1);
+
+        assertEquals(BigInteger.valueOf(enumerate(CARDS_TO_DRAW, 1, 1).size()), cardSelector.countKingdoms(data));
+    }
+
+    /**
+     * A minimum the cards to draw can meet doesn't ask for Events, even when its group has some.
+     */
+    @Test
+    public void leavesOutEventsForMinimumsOfCardsToDraw() throws SolveError {
+        cardSelector.setLimitMinimum(data.getGroup("Twos"), 1);
+
+        // A and two of the other five Actions
+        assertEquals(BigInteger.valueOf(10), cardSelector.countKingdoms(data));
+        for (long seed = 0; seed < 100; seed++) {
+            final List<Card> cards = cardSelector.generate(data, seed).getCards();
+            assertTrue(cards.contains(data.getCard("A")));
+            assertFalse(cards.contains(data.getCard("X")));
+        }
+    }
+
+    @Test
+    public void countsAgainAfterACancelledCount() throws SolveError {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        final CancellationToken cancellation = new CancellationToken();
+        cancellation.cancel();
+        try {
+            cardSelector.countKingdoms(data, 1000, cancellation);
+            fail("Counted after cancel");
+        } catch (SolveTimeout e) {
+            assertEquals(SolveError.Reason.CANCELLED, e.getReason());
+        }
+
+        assertEquals(BigInteger.valueOf(16), cardSelector.countKingdoms(data, 1000, new CancellationToken()));
+    }
+
+    /**
+     * Equal chances can pick the kingdoms searching finds, except those with Events no Limit asks for.
+     */
+    @Test
+    public void picksTheKingdomsOfTheSearchWithoutUnaskedEvents() throws SolveError {
+        for (int maximumEvents : new int[]{1, Integer.MAX_VALUE}) {
+            for (int minimumEvents = 0; minimumEvents <= 1; minimumEvents++) {
+                final String rules = "Events " + minimumEvents + " to " + maximumEvents;
+                for (CardSelector selector : new CardSelector[]{cardSelector, searchingCardSelector}) {
+                    selector.setLimitMaximum(data.getGroup("Attacks"), 1);
+                    selector.setLimitMinimum(data.getGroup("Events"), minimumEvents);
+                    selector.setLimitMaximum(data.getGroup("Events"), maximumEvents == Integer.MAX_VALUE ? 0 : maximumEvents);
+                }
+                final Set<String> valid = enumerate(1, minimumEvents, Math.min(maximumEvents, 3));
+                final Set<String> searched = generate(searchingCardSelector, 3000);
+                final Set<String> sampled = generate(cardSelector, 3000);
+
+                assertEquals(rules, valid, searched);
+                assertEquals(rules, withEventsUpTo(valid, minimumEvents), sampled);
+                assertEquals(rules, BigInteger.valueOf(sampled.size()), cardSelector.countKingdoms(data));
+            }
+        }
+    }
+
+    /**
+     * Picks every kingdom 150 times on average, and checks the counts with a chi-square test.
+     */
+    @Test
+    public void picksEveryKingdomWithTheSameChance() throws SolveError {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.setLimitMinimum(data.getGroup("Events"), 1);
+        final Set<String> kingdoms = enumerate(1, 1, 1);
+        assertEquals(48, kingdoms.size());
+        final int samples = kingdoms.size() * 150;
+
+        final Map<String, Integer> counts = new HashMap<>();
+        for (long seed = 0; seed < samples; seed++) {
+            final String kingdom = getKey(cardSelector.generate(data, seed).getCards());
+            assertTrue("Not a kingdom: " + kingdom, kingdoms.contains(kingdom));
+            final Integer count = counts.get(kingdom);
+            counts.put(kingdom, count == null ? 1 : count + 1);
+        }
+
+        final double expected = (double) samples / kingdoms.size();
+        double chiSquare = 0;
+        for (String kingdom : kingdoms) {
+            final Integer count = counts.get(kingdom);
+            final double difference = (count == null ? 0 : count) - expected;
+            chiSquare += difference * difference / expected;
+        }
+        // The 99.9th percentile of the chi-square distribution with 47 degrees of freedom
+        assertFalse("chi-square " + chiSquare, chiSquare > 82.72);
+    }
+
+    private Set<String> generate(CardSelector selector, int samples) throws SolveError {
+        final Set<String> kingdoms = new HashSet<>();
+        for (long seed = 0; seed < samples; seed++) {
+            kingdoms.add(getKey(selector.generate(data, seed).getCards()));
+        }
+        return kingdoms;
+    }
+
+    /**
+     * Finds every kingdom by trying every subset of the cards.
+     *
+     * @param maximumAttacks the most Attacks a kingdom can have
+     * @param minimumEvents  the fewest Events a kingdom can have
+     * @param maximumEvents  the most Events a kingdom can have
+     * @return the kingdoms, as keys made by {@link #getKey(List)}
+     */
+    private Set<String> enumerate(int maximumAttacks, int minimumEvents, int maximumEvents) {
+        final List<Card> cards = new ArrayList<>(data.getCards());
+        final Group attacks = data.getGroup("Attacks");
+        final Group events = data.getGroup("Events");
+        final Set<String> kingdoms = new HashSet<>();
+        for (int subset = 0; subset < 1 << cards.size(); subset++) {
+            final List<Card> kingdom = new ArrayList<>();
+            int drawn = 0;
+            int attackCount = 0;
+            int eventCount = 0;
+            for (int i = 0; i < cards.size(); i++) {
+                if ((subset & 1 << i) != 0) {
+                    final Card card = cards.get(i);
+                    kingdom.add(card);
+                    drawn += card.countsTowardDraw() ? 1 : 0;
+                    attackCount += attacks.contains(card) ? 1 : 0;
+                    eventCount += events.contains(card) ? 1 : 0;
+                }
+            }
+            if (drawn == CARDS_TO_DRAW && attackCount <= maximumAttacks
+                    && eventCount >= minimumEvents && eventCount <= maximumEvents) {
+                kingdoms.add(getKey(kingdom));
+            }
+        }
+        return kingdoms;
+    }
+
+    private Set<String> withEventsUpTo(Set<String> kingdoms, int maximumEvents) {
+        final Set<String> withEvents = new HashSet<>();
+        for (String kingdom : kingdoms) {
+            int eventCount = 0;
+            for (Card card : data.getGroup("Events").getCards()) {
+                eventCount += kingdom.contains(card.getName()) ? 1 : 0;
+            }
+            if (eventCount <= maximumEvents) {
+                withEvents.add(kingdom);
+            }
+        }
+        return withEvents;
+    }
+
+    private static String getKey(List<Card> cards) {
+        final List<String> names = new ArrayList<>();
+        for (Card card : cards) {
+            names.add(card.getName());
+        }
+        Collections.sort(names);
+        return names.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the counts kept by the LimitTracker against the Limits counting the same cards from scratch.
+ */
+public class LimitTrackerTest {
+    private Data data;
+    private List<Limit> limits;
+
+    @Before
+    public void setUp() {
+        final TestData testData = new TestData();
+        for (int i = 0; i < 12; i++) {
+            testData.card("Card" + i, "3", "Action").group(i < 6 ? "Low" : "High", "Card" + i);
+            if (i % 3 == 0) {
+                testData.group("Thirds", "Card" + i);
+            }
+        }
+        data = testData.build();
+
+        final Limit low = new Limit(data.getGroup("Low"));
+        low.setMinimum(2);
+        low.setMaximum(3);
+        final Limit thirds = new Limit(data.getGroup("Thirds"));
+        thirds.setMaximum(1);
+        // At least 2 High cards once Card0 is in
+        final Limit high = new Limit(data.getGroup("High"));
+        high.setMinimum(2);
+        high.setCondition(data.getCard("Card0"));
+        limits = Arrays.asList(low, thirds, high);
+    }
+
+    @Test
+    public void startsWithTheMinimumsUnmet() {
+        final LimitTracker tracker = new LimitTracker(limits, data.getCardCount());
+
+        assertTrue(tracker.maximumsSatisfied());
+        assertFalse(tracker.isSatisfied());
+        assertEquals(0, tracker.firstUnmetMinimum());
+        assertTrue(tracker.appliesTo(0));
+        assertFalse(tracker.appliesTo(2));
+    }
+
+    @Test
+    public void appliesAConditionalLimitOnceItsConditionIsIn() {
+        final LimitTracker tracker = new LimitTracker(limits, data.getCardCount());
+        tracker.add(data.getCard("Card1"));
+        tracker.add(data.getCard("Card2"));
+        assertTrue(tracker.isSatisfied());
+
+        tracker.add(data.getCard("Card0"));
+        assertTrue(tracker.appliesTo(2));
+        assertEquals(2, tracker.firstUnmetMinimum());
+        assertFalse(tracker.isSatisfied());
+
+        tracker.remove(data.getCard("Card0"));
+        assertTrue(tracker.isSatisfied());
+    }
+
+    @Test
+    public void keepsUpWithRandomAddsAndRemoves() {
+        final LimitTracker tracker = new LimitTracker(limits, data.getCardCount());
+        final List<Card> all = new ArrayList<>(data.getCards());
+        final CardSet cards = new CardSet();
+        final Random random = new Random(3);
+        for (int step = 0; step < 2000; step++) {
+            final Card card = all.get(random.nextInt(all.size()));
+            if (cards.contains(card)) {
+                cards.remove(card);
+                tracker.remove(card);
+            } else {
+                cards.add(card);
+                tracker.add(card);
+            }
+
+            boolean satisfied = true;
+            boolean maximumsSatisfied = true;
+            int firstUnmetMinimum = -1;
+            for (int i = 0; i < limits.size(); i++) {
+                final Limit limit = limits.get(i);
+                assertEquals(limit.count(cards), tracker.getCount(i));
+                assertEquals(limit.appliesTo(cards), tracker.appliesTo(i));
+                satisfied &= limit.isSatisfied(cards);
+                maximumsSatisfied &= !limit.appliesTo(cards) || limit.count(cards) <= limit.getMaximum();
+                if (firstUnmetMinimum < 0 && !limit.minimumSatisfied(cards)) {
+                    firstUnmetMinimum = i;
+                }
+            }
+            assertEquals(cards.toString(), satisfied, tracker.isSatisfied());
+            assertEquals(cards.toString(), maximumsSatisfied, tracker.maximumsSatisfied());
+            assertEquals(cards.toString(), firstUnmetMinimum, tracker.firstUnmetMinimum());
+        }
+    }
+
+    @Test
+    public void copiesTrackTheirOwnCards() {
+        final LimitTracker original = new LimitTracker(limits, data.getCardCount());
+        original.add(data.getCard("Card1"));
+        final LimitTracker copy = new LimitTracker(original);
+        copy.add(data.getCard("Card2"));
+
+        assertEquals(1, original.getCount(0));
+        assertEquals(2, copy.getCount(0));
+        assertFalse(original.isSatisfied());
+        assertTrue(copy.isSatisfied());
+    }
+}
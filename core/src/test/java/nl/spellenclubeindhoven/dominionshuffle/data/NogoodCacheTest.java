@@ -0,0 +1,144 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NogoodCacheTest {
+    @Test
+    public void dropsTheLeastRecentlyUsedEntry() {
+        final NogoodCache cache = new NogoodCache(2);
+        final long[] none = new long[1];
+        cache.add(new int[]{1, 0}, none);
+        cache.add(new int[]{0, 1}, none);
+        // Using the first entry makes the second the least recently used
+        assertTrue(cache.contains(new int[]{1, 0}, none));
+        cache.add(new int[]{1, 1}, none);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.contains(new int[]{1, 0}, none));
+        assertFalse(cache.contains(new int[]{0, 1}, none));
+        assertTrue(cache.contains(new int[]{1, 1}, none));
+    }
+
+    @Test
+    public void keepsItsOwnCopyOfTheKey() {
+        final NogoodCache cache = new NogoodCache();
+        final int[] classCounts = {2, 1};
+        final long[] activeConditions = {1};
+        cache.add(classCounts, activeConditions);
+        classCounts[0] = 3;
+        activeConditions[0] = 0;
+
+        assertTrue(cache.contains(new int[]{2, 1}, new long[]{1}));
+        assertFalse(cache.contains(classCounts, activeConditions));
+    }
+
+    @Test
+    public void tellsApartConditionsPastTheSixtyFourth() {
+        final NogoodCache cache = new NogoodCache();
+        final int[] classCounts = {1};
+        cache.add(classCounts, new long[]{1L, 0L});
+
+        assertTrue(cache.contains(classCounts, new long[]{1L, 0L}));
+        assertFalse(cache.contains(classCounts, new long[]{0L, 1L}));
+        assertFalse(cache.contains(classCounts, new long[]{1L, 1L}));
+    }
+
+    /**
+     * With 70 conditional Limits, the 1st and the 65th used to end up on the same bit.
+     */
+    @Test
+    public void givesEveryConditionalLimitABitOfItsOwn() {
+        final List<Card> cards = new ArrayList<>();
+        for (int id = 0; id < 71; id++) {
+            cards.add(new Card(id, "Card" + id, "Test", "2", Collections.singletonList("Action"), false));
+        }
+        final Group all = new Group("All", new CardSet(cards));
+        final List<Limit> limits = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            final Limit limit = new Limit(all);
+            limit.setCondition(cards.get(i));
+            limits.add(limit);
+        }
+        final LimitTracker tracker = new LimitTracker(limits, cards.size());
+        final long[] first = new long[tracker.getConditionWords()];
+        final long[] sixtyFifth = new long[tracker.getConditionWords()];
+        assertEquals(2, first.length);
+
+        tracker.add(cards.get(0));
+        tracker.getActiveConditions(first);
+        tracker.remove(cards.get(0));
+        tracker.add(cards.get(64));
+        tracker.getActiveConditions(sixtyFifth);
+
+        assertEquals("[1, 0]", Arrays.toString(first));
+        assertEquals("[0, 1]", Arrays.toString(sixtyFifth));
+    }
+
+    /**
+     * Skipping the selections in the cache must never turn a search that finds a kingdom into one that fails, or the
+     * other way around. Tries random rules, some with conditions, with and without a cache.
+     */
+    @Test
+    public void findsAKingdomExactlyWhenASearchWithoutCacheDoes() {
+        final TestData testData = new TestData();
+        final String[] groups = {"Low", "High", "Attacks", "Odd"};
+        for (int i = 0; i < 14; i++) {
+            final String name = "Card" + i;
+            testData.card(name, "3", "Action").group(i < 7 ? "Low" : "High", name);
+            if (i % 4 == 0) {
+                testData.group("Attacks", name);
+            }
+            if (i % 2 == 1) {
+                testData.group("Odd", name);
+            }
+        }
+        final Data data = testData.build();
+        final Random random = new Random(31);
+        final SolverStatistics statistics = new SolverStatistics();
+        int failed = 0;
+        for (int round = 0; round < 300; round++) {
+            final CardSelector cardSelector = new CardSelector(new FixedSettings(5, false));
+            cardSelector.addIncludedGroup(data.getGroup("All"));
+            for (String group : groups) {
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMinimum(data.getGroup(group), random.nextInt(4));
+                }
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMaximum(data.getGroup(group), 1 + random.nextInt(3));
+                }
+                if (random.nextInt(4) == 0) {
+                    cardSelector.setCondition(data.getGroup(group), data.getCard("Card" + random.nextInt(14)));
+                }
+            }
+            final SolverPlan plan = cardSelector.getRuleSnapshot().getPlan(data, 5);
+
+            final SolutionSearch plain = new SolutionSearch(plan, new Random(round));
+            final SolutionSearch cached = new SolutionSearch(plan, new Random(round));
+            cached.setNogoodCache(new NogoodCache());
+            cached.setStatistics(statistics);
+            final int status = plain.search();
+            assertEquals(plan.getLimits().toString(), status == SolutionSearch.SOLVED, cached.search() == SolutionSearch.SOLVED);
+            if (status == SolutionSearch.SOLVED) {
+                for (Limit limit : plan.getLimits()) {
+                    assertTrue(limit.isSatisfied(cached.getResult().getCards()));
+                }
+            } else {
+                failed++;
+            }
+        }
+        // Otherwise the cache never gets to skip anything
+        assertTrue("failed " + failed, failed > 10);
+        assertTrue("nogood hits " + statistics.getNogoodHits(), statistics.getNogoodHits() > 0);
+    }
+}
@@ -0,0 +1,150 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks the RuleAnalyzer on 8 Actions (A to H) and 2 Events, drawing 4 cards.<br/>
+ * Low holds A to D, High holds E to H, and Attacks holds A, B and E.
+ */
+public class RuleAnalyzerTest {
+    private static final int CARDS_TO_DRAW = 4;
+
+    private Data data;
+    private CardSelector cardSelector;
+
+    @Before
+    public void setUp() {
+        data = new TestData()
+                .card("A", "2", "Action", "Attack").card("B", "2", "Action", "Attack").card("C", "3", "Action")
+                .card("D", "3", "Action").card("E", "4", "Action", "Attack").card("F", "4", "Action")
+                .card("G", "5", "Action").card("H", "5", "Action")
+                .card("X", "2", "Event").card("Y", "4", "Event")
+                .group("Low", "A", "B", "C", "D").group("High", "E", "F", "G", "H").group("Attacks", "A", "B", "E")
+                .group("Events", "X", "Y")
+                .build();
+        cardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+    }
+
+    @Test
+    public void passesRulesThatCanBeMet() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 2);
+        cardSelector.setLimitMinimum(data.getGroup("High"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+
+        assertNull(cardSelector.checkRules(data));
+    }
+
+    @Test
+    public void rejectsMoreRequiredCardsThanAreDrawn() {
+        for (String name : new String[]{"A", "B", "C", "D", "E"}) {
+            cardSelector.addRequiredCard(data.getCard(name));
+        }
+
+        assertReason(SolveError.Reason.TOO_MANY_CARDS);
+    }
+
+    @Test
+    public void rejectsFewerCardsThanAreDrawn() {
+        cardSelector.addExcludedGroup(data.getGroup("High"));
+        cardSelector.addExcludedCard(data.getCard("A"));
+
+        assertReason(SolveError.Reason.NOT_ENOUGH_CARDS);
+    }
+
+    @Test
+    public void rejectsAMinimumAboveTheCardsLeftInItsGroup() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 3);
+        cardSelector.addExcludedCard(data.getCard("A"));
+        cardSelector.addExcludedCard(data.getCard("B"));
+
+        assertReason(SolveError.Reason.NOT_ENOUGH_CARDS);
+    }
+
+    @Test
+    public void countsCardsNotDrawnTowardsAMinimum() {
+        cardSelector.setLimitMinimum(data.getGroup("Events"), 2);
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 4);
+
+        assertNull(cardSelector.checkRules(data));
+    }
+
+    @Test
+    public void rejectsAMinimumAboveTheMaximum() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 3);
+        cardSelector.setLimitMaximum(data.getGroup("Low"), 2);
+
+        assertReason(SolveError.Reason.UNSATISFIED_RULE);
+    }
+
+    @Test
+    public void rejectsRequiredCardsOverAMaximum() {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.addRequiredCard(data.getCard("A"));
+        cardSelector.addRequiredCard(data.getCard("E"));
+
+        assertReason(SolveError.Reason.REQUIRED_OVER_MAXIMUM);
+    }
+
+    @Test
+    public void rejectsMinimumsOfSeparateGroupsNeedingMoreThanTheDraw() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 3);
+        cardSelector.setLimitMinimum(data.getGroup("High"), 2);
+
+        assertReason(SolveError.Reason.OVERCONSTRAINED_MINIMUMS);
+    }
+
+    /**
+     * Whether a conditional limit applies depends on the cards picked, so it's left to the search.
+     */
+    @Test
+    public void leavesConditionalLimitsThatDoNotApplyYet() {
+        cardSelector.setLimitMinimum(data.getGroup("Low"), 5);
+        cardSelector.setCondition(data.getGroup("Low"), data.getCard("H"));
+
+        assertNull(cardSelector.checkRules(data));
+    }
+
+    /**
+     * The analyzer must never reject rules a search can meet. Tries random rules and searches whenever it rejects them.
+     */
+    @Test
+    public void neverRejectsRulesTheSearchCanMeet() {
+        final String[] groups = {"Low", "High", "Attacks", "Events"};
+        final Random random = new Random(5);
+        int rejected = 0;
+        for (int i = 0; i < 300; i++) {
+            cardSelector.clear();
+            cardSelector.addIncludedGroup(data.getGroup("All"));
+            for (String group : groups) {
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMinimum(data.getGroup(group), random.nextInt(4));
+                }
+                if (random.nextBoolean()) {
+                    cardSelector.setLimitMaximum(data.getGroup(group), 1 + random.nextInt(3));
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                cardSelector.addRequiredCard(data.getCard(String.valueOf((char) ('A' + random.nextInt(8)))));
+            }
+            if (cardSelector.checkRules(data) != null) {
+                rejected++;
+                final SolverPlan plan = cardSelector.getRuleSnapshot().getPlan(data, CARDS_TO_DRAW);
+                assertFalse("Rejected " + plan.getLimits(), new SolutionSearch(plan, new Random(i)).search() == SolutionSearch.SOLVED);
+            }
+        }
+        assertFalse("Nothing rejected", rejected == 0);
+    }
+
+    private void assertReason(SolveError.Reason reason) {
+        final SolveError error = cardSelector.checkRules(data);
+        assertEquals(String.valueOf(error), reason, error == null ? null : error.getReason());
+    }
+}
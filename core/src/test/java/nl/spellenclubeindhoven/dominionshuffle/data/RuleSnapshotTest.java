@@ -0,0 +1,72 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RuleSnapshotTest {
+    private Data data;
+    private Group attacks;
+    private CardSelector cardSelector;
+
+    @Before
+    public void setUp() {
+        data = new TestData()
+                .card("A", "2", "Action", "Attack").card("B", "3", "Action", "Attack").card("C", "4", "Action")
+                .card("D", "5", "Action")
+                .group("Attacks", "A", "B").group("Cheap", "A", "B", "C")
+                .build();
+        attacks = data.getGroup("Attacks");
+        cardSelector = new CardSelector(new FixedSettings(2, false));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+        cardSelector.setLimitMinimum(attacks, 1);
+    }
+
+    @Test
+    public void keepsTheLimitsWhenACopyIsChanged() {
+        final RuleSnapshot snapshot = cardSelector.getRuleSnapshot();
+        final Limit copy = cardSelector.getLimit(attacks);
+        copy.setMinimum(2);
+        copy.setMaximum(0);
+        copy.setCondition(data.getCard("C"));
+
+        assertEquals(1, cardSelector.getLimitMinimum(attacks));
+        assertNull(cardSelector.getCondition(attacks));
+        assertSame(snapshot, cardSelector.getRuleSnapshot());
+        assertEquals(1, snapshot.getLimit(attacks).getMinimum());
+        assertNull(snapshot.getLimit(attacks).getCondition());
+        assertEquals(1, snapshot.getPlan(data, 2).getLimits().get(0).getMinimum());
+    }
+
+    @Test
+    public void handsOutCopiesOfThePublishedLimits() {
+        final RuleSnapshot snapshot = cardSelector.getRuleSnapshot();
+        snapshot.getLimit(attacks).setMinimum(2);
+
+        assertNotSame(snapshot.getLimit(attacks), snapshot.getLimit(attacks));
+        assertEquals(1, snapshot.getLimit(attacks).getMinimum());
+    }
+
+    @Test
+    public void keepsAnOlderSnapshotWhenTheRulesChange() {
+        final RuleSnapshot before = cardSelector.getRuleSnapshot();
+        cardSelector.setLimitMinimum(attacks, 2);
+        cardSelector.setLimitMaximum(data.getGroup("Cheap"), 2);
+
+        assertEquals(1, before.getLimit(attacks).getMinimum());
+        assertNull(before.getLimit(data.getGroup("Cheap")));
+        assertEquals(2, cardSelector.getRuleSnapshot().getLimit(attacks).getMinimum());
+    }
+
+    @Test
+    public void hasNoLimitForAGroupWithout() {
+        assertNull(cardSelector.getLimit(data.getGroup("Cheap")));
+        cardSelector.removeLimit(attacks);
+        assertNull(cardSelector.getLimit(attacks));
+        assertNull(cardSelector.getRuleSnapshot().getLimit(attacks));
+    }
+}
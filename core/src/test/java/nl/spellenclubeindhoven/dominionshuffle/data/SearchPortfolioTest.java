@@ -0,0 +1,96 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the portfolio on 60 Actions in 6 sets of 10, with rules that make about a third of the random orders
+ * run past the limit of the first search.
+ */
+public class SearchPortfolioTest {
+    private static final int CARDS_TO_DRAW = 10;
+
+    private SolverPlan plan;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        final TestData testData = new TestData();
+        for (int i = 0; i < 60; i++) {
+            final String name = "Card" + i;
+            final String cost = String.valueOf(2 + i % 5);
+            if (i % 4 == 0) {
+                testData.card(name, cost, "Action", "Attack").group("Attacks", name);
+            } else {
+                testData.card(name, cost, "Action");
+            }
+            testData.group("Set" + i / 10, name).group("Cost" + cost, name);
+            if (i % 6 == 0) {
+                testData.group("Buys", name);
+            }
+            if (i % 7 == 0) {
+                testData.group("Draws", name);
+            }
+        }
+        final Data data = testData.build();
+
+        final CardSelector cardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+        cardSelector.setLimitMinimum(data.getGroup("Set0"), 4);
+        cardSelector.setLimitMinimum(data.getGroup("Set1"), 4);
+        cardSelector.setLimitMinimum(data.getGroup("Buys"), 2);
+        cardSelector.setLimitMinimum(data.getGroup("Draws"), 2);
+        cardSelector.setLimitMinimum(data.getGroup("Cost6"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        plan = cardSelector.getRuleSnapshot().getPlan(data, CARDS_TO_DRAW);
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void followsTheLubySequence() {
+        final long[] sequence = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < sequence.length; i++) {
+            assertEquals("search " + i, sequence[i] * SearchPortfolio.FIRST_NODE_LIMIT, SearchPortfolio.getNodeLimit(i));
+        }
+    }
+
+    @Test
+    public void picksTheSameKingdomOnAnyNumberOfThreads() throws InterruptedException {
+        final SearchPortfolio portfolio = new SearchPortfolio(plan);
+        int restarted = 0;
+        for (long seed = 0; seed < 50; seed++) {
+            assertEquals(SolutionSearch.SOLVED, portfolio.search(new SplitMix64(seed), 1, null, null, Long.MAX_VALUE, null));
+            final Result alone = portfolio.getResult();
+            if (portfolio.getNodes() > SearchPortfolio.FIRST_NODE_LIMIT) {
+                restarted++;
+            }
+            assertEquals(SolutionSearch.SOLVED, portfolio.search(new SplitMix64(seed), 4, executor, null, Long.MAX_VALUE, null));
+            assertEquals("seed " + seed, alone.getCards(), portfolio.getResult().getCards());
+        }
+        // Otherwise the first search always wins, and the threads make no difference
+        assertTrue("restarted " + restarted, restarted > 5);
+    }
+
+    @Test
+    public void leavesTheGeneratorTheSameForAnyNumberOfThreads() throws InterruptedException {
+        final SearchPortfolio portfolio = new SearchPortfolio(plan);
+        final SplitMix64 alone = new SplitMix64(7);
+        final SplitMix64 together = new SplitMix64(7);
+        portfolio.search(alone, 1, null, null, Long.MAX_VALUE, null);
+        portfolio.search(together, 4, executor, null, Long.MAX_VALUE, null);
+
+        assertEquals(alone.nextLong(), together.nextLong());
+    }
+}
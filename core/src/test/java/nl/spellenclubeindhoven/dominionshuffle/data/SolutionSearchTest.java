@@ -0,0 +1,147 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs single searches on 20 Actions: A, B and C are Attacks and in the group Cheap with D, and E to T are plain.
+ */
+public class SolutionSearchTest {
+    private static final int CARDS_TO_DRAW = 5;
+
+    private Data data;
+    private CardSelector cardSelector;
+
+    @Before
+    public void setUp() {
+        final TestData testData = new TestData();
+        for (char name = 'A'; name <= 'T'; name++) {
+            if (name <= 'C') {
+                testData.card(String.valueOf(name), "2", "Action", "Attack").group("Attacks", String.valueOf(name));
+            } else {
+                testData.card(String.valueOf(name), "4", "Action");
+            }
+        }
+        data = testData.group("Cheap", "A", "B", "C", "D").build();
+        cardSelector = new CardSelector(new FixedSettings(CARDS_TO_DRAW, false));
+        cardSelector.addIncludedGroup(data.getGroup("All"));
+    }
+
+    @Test
+    public void findsKingdomsMeetingEveryLimit() {
+        cardSelector.setLimitMinimum(data.getGroup("Cheap"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.addRequiredCard(data.getCard("T"));
+        final SolverPlan plan = getPlan();
+
+        for (long seed = 0; seed < 200; seed++) {
+            final SolutionSearch search = new SolutionSearch(plan, new Random(seed));
+            assertEquals(SolutionSearch.SOLVED, search.search());
+            final Result result = search.getResult();
+            assertEquals(CARDS_TO_DRAW, result.getCards().size());
+            assertTrue(result.getCards().contains(data.getCard("T")));
+            for (Limit limit : plan.getLimits()) {
+                assertTrue(limit + " in " + result.getCards(), limit.isSatisfied(result.getCards()));
+            }
+        }
+    }
+
+    /**
+     * Each of the Attacks fills Attacks, after which Cheap can't get its 3 cards; the search has to try them all.
+     */
+    @Test
+    public void failsWhenNoKingdomMeetsTheLimits() {
+        cardSelector.setLimitMinimum(data.getGroup("Cheap"), 3);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+
+        assertEquals(SolutionSearch.RULES_TOO_STRICT, new SolutionSearch(getPlan(), new Random(1)).search());
+    }
+
+    /**
+     * Propagating the maximum takes the other Attacks out of the candidates after the first, so Cheap is seen to fail
+     * right away, instead of after trying every selection of the plain cards.
+     */
+    @Test
+    public void abandonsABranchOnceAMinimumIsOutOfReach() {
+        cardSelector.setLimitMinimum(data.getGroup("Cheap"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.addExcludedCard(data.getCard("D"));
+
+        final SolutionSearch search = new SolutionSearch(getPlan(), new Random(1));
+        assertEquals(SolutionSearch.RULES_TOO_STRICT, search.search());
+        // The root and one frame for each Attack
+        assertEquals(4, search.getNodes());
+    }
+
+    @Test
+    public void neverPicksACardOverAMaximum() {
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        final SolverPlan plan = getPlan();
+
+        for (long seed = 0; seed < 200; seed++) {
+            final SolutionSearch search = new SolutionSearch(plan, new Random(seed));
+            assertEquals(SolutionSearch.SOLVED, search.search());
+            // Without backtracking: the root and one frame per card drawn
+            assertEquals(CARDS_TO_DRAW + 1, search.getNodes());
+        }
+    }
+
+    /**
+     * With Young Witch in and the only card that could be the Bane required, the search fails at the root.
+     */
+    @Test
+    public void failsAtOnceWithoutABane() {
+        final Data witchData = new TestData()
+                .card(Constants.CARD_YOUNG_WITCH, "4", "Action", "Attack").card("Bane", "2", "Action")
+                .card("Other", "5", "Action").card("Another", "5", "Action")
+                .group(Constants.GROUP_COST_2, "Bane")
+                .build();
+        final CardSelector witchSelector = new CardSelector(new FixedSettings(3, false));
+        witchSelector.addIncludedGroup(witchData.getGroup("All"));
+        witchSelector.addRequiredCard(witchData.getCard(Constants.CARD_YOUNG_WITCH));
+        witchSelector.addRequiredCard(witchData.getCard("Bane"));
+
+        final SolutionSearch search = new SolutionSearch(witchSelector.getRuleSnapshot().getPlan(witchData, 3),
+                new Random(1));
+        assertEquals(SolutionSearch.NO_BANE, search.search());
+        assertEquals(1, search.getNodes());
+    }
+
+    /**
+     * Backtracking undoes its changes through the trail, so a reset search picks like a new one, also after one that
+     * stopped halfway at its node limit.
+     */
+    @Test
+    public void picksLikeANewSearchAfterReset() {
+        cardSelector.setLimitMinimum(data.getGroup("Cheap"), 2);
+        cardSelector.setLimitMaximum(data.getGroup("Attacks"), 1);
+        cardSelector.addRequiredCard(data.getCard("T"));
+        final SolverPlan plan = getPlan();
+        final SolutionSearch reused = new SolutionSearch(plan, new Random(0));
+
+        for (long seed = 0; seed < 100; seed++) {
+            final SolutionSearch fresh = new SolutionSearch(plan, new Random(seed));
+            fresh.setNodeLimit(seed % 3 == 0 ? 3 : Long.MAX_VALUE);
+            reused.setNodeLimit(seed % 3 == 0 ? 3 : Long.MAX_VALUE);
+            reused.reset(new Random(seed));
+
+            final int status = fresh.search();
+            assertEquals("seed " + seed, status, reused.search());
+            assertEquals("seed " + seed, fresh.getNodes(), reused.getNodes());
+            if (status == SolutionSearch.SOLVED) {
+                assertEquals("seed " + seed, fresh.getResult().getCards(), reused.getResult().getCards());
+            }
+        }
+    }
+
+    private SolverPlan getPlan() {
+        return cardSelector.getRuleSnapshot().getPlan(data, CARDS_TO_DRAW);
+    }
+}
@@ -0,0 +1,88 @@
+package nl.spellenclubeindhoven.dominionshuffle.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import nl.spellenclubeindhoven.dominionshuffle.Constants;
+
+/**
+ * Builds a small card database for tests, in the format of the data.json of the app.<br/>
+ * The groups the CardSelector looks up by name are added empty when a test doesn't define them, and the All group
+ * gets every card.
+ */
+class TestData {
+    private static final String[] NAMED_GROUPS = {
+            Constants.GROUP_COST_2, Constants.GROUP_COST_3, Constants.GROUP_COST_4, Constants.GROUP_PROPHECIES,
+            Constants.GROUP_ALLIES, Constants.GROUP_LIAISONS, Constants.GROUP_PROSPERITY_FIRST, Constants.GROUP_DARK_AGES};
+
+    final private JSONArray cards = new JSONArray();
+    final private JSONArray all = new JSONArray();
+    final private Map<String, JSONArray> groups = new LinkedHashMap<>();
+    final private Set<String> leftOut = new HashSet<>();
+
+    TestData card(String name, String cost, String... types) {
+        try {
+            cards.put(new JSONObject()
+                    .put("card", name)
+                    .put("set", "Test")
+                    .put("cost", cost)
+                    .put("type", new JSONArray(Arrays.asList(types))));
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(e);
+        }
+        all.put(name);
+        return this;
+    }
+
+    /**
+     * Adds the cards to the group, creating it if needed.
+     */
+    TestData group(String name, String... cardNames) {
+        JSONArray group = groups.get(name);
+        if (group == null) {
+            group = new JSONArray();
+            groups.put(name, group);
+        }
+        for (String cardName : cardNames) {
+            group.put(cardName);
+        }
+        return this;
+    }
+
+    /**
+     * Leaves out a group the CardSelector looks up by name, instead of adding it empty.
+     */
+    TestData without(String name) {
+        leftOut.add(name);
+        return this;
+    }
+
+    Data build() {
+        try {
+            final JSONArray jsonGroups = new JSONArray();
+            jsonGroups.put(new JSONObject().put("group", Constants.GROUP_ALL).put("cards", all));
+            for (Map.Entry<String, JSONArray> group : groups.entrySet()) {
+                jsonGroups.put(new JSONObject().put("group", group.getKey()).put("cards", group.getValue()));
+            }
+            for (String name : NAMED_GROUPS) {
+                if (!groups.containsKey(name) && !leftOut.contains(name)) {
+                    jsonGroups.put(new JSONObject().put("group", name).put("cards", new JSONArray()));
+                }
+            }
+            return Data.read(new JSONObject()
+                    .put("cards", cards)
+                    .put("groups", jsonGroups)
+                    .put("non_kingdom_cards", new JSONArray())
+                    .toString());
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}